@@ -0,0 +1,155 @@
+// File: BenchFixture.java
+// Description:
+//    Sets up simulator state for the JMH benchmarks. The simulator classes are
+//    in the default package, which JMH benchmark classes cannot be in or
+//    import, so the benchmarks (package membench) get their operations from
+//    here through java.util.function interfaces.
+
+// Import packages
+import java.util.function.*;
+
+public class BenchFixture {
+	static final int Seed1 = 1234567, Seed2 = 2345678, Seed3 = 3456789; // fixed seeds for the processes
+
+	// Creates a process with numPages pages split over its four segments,
+	// allocated numFrames frames all loaded with pages 0, stride, 2*stride ...
+	// (exactRandom - the Colt streams, see Seeds)
+	static Process loadedProcess(Kernel krn, int numPages, int numFrames, int stride, boolean exactRandom) {
+		int seg = numPages / 4;
+		Process prc = new Process(100, numPages - 3 * seg, seg, seg, seg, 250, Seed1, Seed2, Seed3, exactRandom);
+		prc.numAllocatedFrames = numFrames;
+		prc.allocatedFrames = new int[numFrames];
+		prc.numFramesUsed = 0;
+		for (int i = 0; i < numFrames; i++) {
+			KernelFunctions.pageReplacement(i * stride, prc, krn);
+			KernelFunctions.doneMemAccess(i * stride, prc, i);
+		}
+		return (prc);
+	}
+
+	// Each call references the next page in a cyclic sequential scan of the
+	// process pages, so with numFrames < numPages every call is a page fault
+	// that goes through the replacement algorithm
+	public static IntSupplier replacement(String alg, int numPages, int numFrames) {
+		Kernel krn = new Kernel(numFrames, PagingAlgorithm.valueOf(alg));
+		Process prc = loadedProcess(krn, numPages, numFrames, 1, false);
+		return new ReplacementOp(prc, krn, numFrames);
+	}
+
+	// Each call looks up the page in the next allocated frame, using either
+	// the kernel frame table or a scan of the page table. The loaded pages
+	// are spread over the whole page table.
+	public static IntSupplier findvPage(boolean scan, int numPages, int numFrames) {
+		Kernel krn = new Kernel(numFrames, PagingAlgorithm.FIFO);
+		Process prc = loadedProcess(krn, numPages, numFrames, numPages / numFrames, false);
+		return new FindOp(prc, krn, scan);
+	}
+
+	// Each call looks up (valid bit and frame) the next page of a random
+	// sequence of the pages mapped in a sparse address space of numPages
+	// pages (see PageTableExp)
+	public static IntSupplier pageTableLookup(String type, int numPages) {
+		PageTable ptbl = PageTableExp.sparseTable(PageTableType.valueOf(type), numPages);
+		if (ptbl == null)
+			throw new IllegalArgumentException(type + " page table of " + numPages + " pages not supported");
+		return new LookupOp(ptbl, PageTableExp.lookupSequence(numPages, 1 << 16));
+	}
+
+	// Each call selects the next page referenced by a process of 32 pages with
+	// its 5 frames full, and the access type, with the fast generator or the
+	// Colt streams (see RefGenerator)
+	public static IntSupplier reference(boolean fast) {
+		Kernel krn = new Kernel(5, PagingAlgorithm.FIFO);
+		Process prc = loadedProcess(krn, 32, 5, 1, !fast);
+		return new ReferenceOp(prc);
+	}
+
+	// Each call runs a complete simulation and returns the number of memory
+	// references (accesses and faults) it simulated
+	public static LongSupplier simulation(String alg, double endTime, boolean fastMemAccess) {
+		PagingAlgorithm pgAlg = PagingAlgorithm.valueOf(alg);
+		return () -> {
+			RepOutput out = ReplicationExp.runOne(pgAlg, 0, 0, endTime, fastMemAccess);
+			return (out.numMemAccesses + out.numFaults);
+		};
+	}
+
+	static class ReferenceOp implements IntSupplier {
+		Process prc;
+
+		ReferenceOp(Process prc) {
+			this.prc = prc;
+		}
+
+		public int getAsInt() {
+			if (prc.numMA2ChangeWS <= 0) // as MemManage.memoryAccessDone
+				prc.updateWS();
+			else
+				prc.numMA2ChangeWS--;
+			int vp = prc.selectAddressPrc();
+			return (prc.selectAccessType(vp) ? vp : -vp);
+		}
+	}
+
+	static class ReplacementOp implements IntSupplier {
+		Process prc;
+		Kernel krn;
+		int nextPage; // next page in the scan
+		double clock; // time stamp for doneMemAccess
+
+		ReplacementOp(Process prc, Kernel krn, int firstPage) {
+			this.prc = prc;
+			this.krn = krn;
+			nextPage = firstPage;
+			clock = firstPage;
+		}
+
+		public int getAsInt() {
+			int vp = nextPage;
+			nextPage = (nextPage + 1) % prc.numPages;
+			KernelFunctions.pageReplacement(vp, prc, krn);
+			KernelFunctions.doneMemAccess(vp, prc, clock++);
+			return (vp);
+		}
+	}
+
+	static class FindOp implements IntSupplier {
+		Process prc;
+		Kernel krn;
+		boolean scan; // scan the page table instead of using the frame table
+		int ix; // index into allocated frames
+
+		FindOp(Process prc, Kernel krn, boolean scan) {
+			this.prc = prc;
+			this.krn = krn;
+			this.scan = scan;
+		}
+
+		public int getAsInt() {
+			int fr = prc.allocatedFrames[ix];
+			ix = (ix + 1) % prc.numFramesUsed;
+			if (scan)
+				return (KernelFunctions.findvPage(prc.pageTable, fr));
+			return (KernelFunctions.findvPage(prc, fr, krn));
+		}
+	}
+
+	static class LookupOp implements IntSupplier {
+		PageTable ptbl;
+		int[] seq; // pages looked up (length a power of 2)
+		int ix; // index into seq
+
+		LookupOp(PageTable ptbl, int[] seq) {
+			this.ptbl = ptbl;
+			this.seq = seq;
+		}
+
+		public int getAsInt() {
+			int vp = seq[ix];
+			ix = (ix + 1) & (seq.length - 1);
+			if (ptbl.isValid(vp))
+				return (ptbl.getFrame(vp));
+			return (-1);
+		}
+	}
+}
@@ -0,0 +1,44 @@
+// File: FindvPageBench.java
+// Description:
+//    JMH benchmarks of the frame to virtual page lookup - kernel frame
+//    table against a scan of the page table
+
+package membench;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FindvPageBench {
+	@Param({ "32", "1024", "16384" })
+	int numPages;
+
+	@Param({ "5", "16", "256" })
+	int numFrames; // limited to numPages / 2
+
+	IntSupplier find; // frame table lookup
+	IntSupplier findScan; // page table scan lookup
+
+	@Setup
+	public void setup() {
+		int frames = Math.min(numFrames, numPages / 2);
+		find = Fixture.findvPage(false, numPages, frames);
+		findScan = Fixture.findvPage(true, numPages, frames);
+	}
+
+	@Benchmark
+	public int frameTable() {
+		return find.getAsInt();
+	}
+
+	@Benchmark
+	public int pageTableScan() {
+		return findScan.getAsInt();
+	}
+}
@@ -0,0 +1,45 @@
+// File: Fixture.java
+// Description:
+//    Looks up the operations set up by the default package BenchFixture
+//    class (named packages cannot refer to default package classes).
+//    Reflection is only used during setup, never in a measured method.
+
+package membench;
+
+import java.lang.reflect.*;
+import java.util.function.*;
+
+class Fixture {
+	static Object call(String name, Class<?>[] types, Object... args) {
+		try {
+			return Class.forName("BenchFixture").getMethod(name, types).invoke(null, args);
+		} catch (InvocationTargetException e) {
+			throw new RuntimeException("BenchFixture." + name + " failed", e.getCause());
+		} catch (ReflectiveOperationException e) {
+			throw new RuntimeException("Cannot call BenchFixture." + name, e);
+		}
+	}
+
+	static IntSupplier replacement(String alg, int numPages, int numFrames) {
+		return (IntSupplier) call("replacement", new Class<?>[] { String.class, int.class, int.class }, alg,
+				numPages, numFrames);
+	}
+
+	static IntSupplier findvPage(boolean scan, int numPages, int numFrames) {
+		return (IntSupplier) call("findvPage", new Class<?>[] { boolean.class, int.class, int.class }, scan,
+				numPages, numFrames);
+	}
+
+	static IntSupplier pageTableLookup(String type, int numPages) {
+		return (IntSupplier) call("pageTableLookup", new Class<?>[] { String.class, int.class }, type, numPages);
+	}
+
+	static IntSupplier reference(boolean fast) {
+		return (IntSupplier) call("reference", new Class<?>[] { boolean.class }, fast);
+	}
+
+	static LongSupplier simulation(String alg, double endTime, boolean fastMemAccess) {
+		return (LongSupplier) call("simulation", new Class<?>[] { String.class, double.class, boolean.class },
+				alg, endTime, fastMemAccess);
+	}
+}
@@ -0,0 +1,36 @@
+// File: PageTableBench.java
+// Description:
+//    JMH benchmarks of a page table lookup for each page table organisation,
+//    with 1024 pages mapped in sparse address spaces
+
+package membench;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PageTableBench {
+	@Param({ "1048576" }) // 2^20 - every organisation (2^29 for all but LINEAR and RADIX2)
+	int numPages;
+
+	@Param({ "LINEAR", "RADIX2", "RADIX4", "HUGE", "HASHED" })
+	String type;
+
+	IntSupplier lookup; // one lookup of a mapped page
+
+	@Setup
+	public void setup() {
+		lookup = Fixture.pageTableLookup(type, numPages);
+	}
+
+	@Benchmark
+	public int pageTableLookup() {
+		return lookup.getAsInt();
+	}
+}
@@ -0,0 +1,34 @@
+// File: ReferenceBench.java
+// Description:
+//    JMH benchmark of the selection of the page referenced (and its access
+//    type) by a process, with the random numbers of the fast generator or of
+//    the Colt streams, both generated in blocks (see RefGenerator)
+
+package membench;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReferenceBench {
+	@Param({ "false", "true" })
+	boolean fast; // RefGenerator fast (default) or exact (Seeds.exactRandom)
+
+	IntSupplier reference; // one page reference
+
+	@Setup
+	public void setup() {
+		reference = Fixture.reference(fast);
+	}
+
+	@Benchmark
+	public int selectReference() {
+		return reference.getAsInt();
+	}
+}
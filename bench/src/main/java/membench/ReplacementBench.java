@@ -0,0 +1,39 @@
+// File: ReplacementBench.java
+// Description:
+//    JMH benchmarks of the page replacement algorithms for different
+//    page table and frame counts
+
+package membench;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReplacementBench {
+	@Param({ "32", "1024", "16384" })
+	int numPages;
+
+	@Param({ "5", "16", "256" })
+	int numFrames; // limited to numPages / 2 so that every reference faults
+
+	@Param({ "FIFO", "LRU", "CLOCK", "COUNT", "LRUSCAN", "ARC", "CLOCKPRO", "TWOQ" })
+	String algorithm;
+
+	IntSupplier fault; // one page fault with replacement
+
+	@Setup
+	public void setup() {
+		fault = Fixture.replacement(algorithm, numPages, Math.min(numFrames, numPages / 2));
+	}
+
+	@Benchmark
+	public int pageReplacement() {
+		return fault.getAsInt();
+	}
+}
@@ -0,0 +1,53 @@
+// File: SimulationBench.java
+// Description:
+//    JMH benchmark of complete simulation runs (MemManage.runSimulation).
+//    The memoryReferences counter gives simulated memory references
+//    (accesses and faults) per second.
+
+package membench;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulationBench {
+	@Param({ "FIFO", "LRU", "CLOCK", "COUNT", "ARC", "CLOCKPRO", "TWOQ" })
+	String algorithm;
+
+	@Param({ "100000" })
+	double endTime; // simulated time of each run
+
+	@Param({ "false", "true" })
+	boolean fastMemAccess; // MemManage.fastMemAccess
+
+	LongSupplier run;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class References {
+		public long memoryReferences; // simulated memory references
+
+		@Setup(Level.Iteration)
+		public void clear() {
+			memoryReferences = 0;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		run = Fixture.simulation(algorithm, endTime, fastMemAccess);
+	}
+
+	@Benchmark
+	public long runSimulation(References refs) {
+		long n = run.getAsLong();
+		refs.memoryReferences += n;
+		return n;
+	}
+}
@@ -0,0 +1,51 @@
+// File: AllocExp.java
+// Description:
+//    Compares the frame allocation policies - for each policy reports the
+//    fault rate and, for each process, the mean number of frames it held
+//    and its own fault rate.
+//    Usage: AllocExp [pagingAlgorithm] [endTime] [replication]
+
+// Import packages
+import java.lang.*;
+import java.util.*;
+
+// Main Method: Experiments
+//
+class AllocExp {
+	public static void main(String[] args) {
+		double startTime = 0.0, endTime = 5000000; // 5 seconds
+		PagingAlgorithm alg = PagingAlgorithm.LRU;
+		int rep = 0;
+		MemManage mmng;
+
+		if (args.length > 0)
+			alg = PagingAlgorithm.valueOf(args[0]);
+		if (args.length > 1)
+			endTime = Double.parseDouble(args[1]);
+		if (args.length > 2)
+			rep = Integer.parseInt(args[2]);
+
+		for (AllocationPolicy policy : AllocationPolicy.values()) {
+			System.out.println("Running simulation using " + alg + " with " + policy + " allocation");
+			mmng = new MemManage(alg, startTime, endTime, ReplicationExp.repSeeds(rep));
+			mmng.setAllocationPolicy(policy);
+			mmng.runSimulation();
+			mmng.computeOutput();
+			printOutput(mmng);
+		}
+	}
+
+	// Prints the run output and, for each process, its mean resident set and fault rate
+	static void printOutput(MemManage mmng) {
+		System.out.println("Number of faults: " + mmng.phiStats.number);
+		System.out.println("Number memory accesses (no faults): " + mmng.numMemAccesses);
+		System.out.println("Number of faults per 1000 references: " + mmng.numPer1000);
+		System.out.println("Dirty pages written back: " + mmng.kernel.numWriteBacks + " replaced, "
+				+ mmng.kernel.numCleaned + " by the page cleaner");
+		for (Process prc : mmng.processes)
+			System.out.println(String.format("   Process %d (%d pages): mean frames %.2f, faults per 1000 references %.1f",
+					prc.pid, prc.numPages, (double) prc.framesUsedSum / Math.max(1, prc.numRefs),
+					1000.0 * prc.numFaults / Math.max(1, prc.numRefs)));
+		System.out.println();
+	}
+}
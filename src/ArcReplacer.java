@@ -0,0 +1,110 @@
+import java.util.BitSet;
+
+// ARC - Adaptive Replacement Cache (Megiddo and Modha)
+// Resident pages are in T1 (referenced once since loaded) or T2 (referenced
+// again). The pages recently replaced from T1 and T2 are remembered in the
+// ghost lists B1 and B2. A fault on a page of B1 increases the target size p
+// of T1, a fault on a page of B2 decreases it, so that the cache adapts
+// between recency (T1) and frequency (T2). A sequential scan only goes
+// through T1 and does not flush the pages of T2.
+class ArcReplacer implements PageReplacer {
+	static final int T1 = 0;
+	static final int T2 = 1;
+	static final int B1 = 2;
+	static final int B2 = 3;
+	PageLists lists; // LRU lists T1, T2, B1, B2 (head is least recently used)
+	int p; // target size of T1
+	boolean ghostHit; // page being loaded was found in B1 or B2 - goes to T2
+	boolean inB2; // page being loaded was found in B2
+	BitSet loaded; // pages loaded whose first access is still to come
+
+	public ArcReplacer(Process prc) {
+		lists = new PageLists(prc.numPages, 4);
+		p = 0;
+		loaded = new BitSet(prc.numPages);
+	}
+
+	// Cache size - the frames allocated to the process
+	int size(Process prc) {
+		return (Math.max(prc.numAllocatedFrames, 1));
+	}
+
+	public void pageFault(int vpage, Process prc) {
+		int c = size(prc);
+		int b1 = lists.size[B1];
+		int b2 = lists.size[B2];
+		int l1;
+		int total;
+
+		inB2 = false;
+		switch (lists.listOf(vpage)) {
+		case B1: // recency would have kept the page - favour T1
+			p = Math.min(c, p + Math.max(b2 / b1, 1));
+			ghostHit = true;
+			break;
+		case B2: // frequency would have kept the page - favour T2
+			p = Math.max(0, p - Math.max(b1 / b2, 1));
+			ghostHit = true;
+			inB2 = true;
+			break;
+		default: // new page - keep the directory within 2c pages
+			ghostHit = false;
+			l1 = lists.size[T1] + lists.size[B1];
+			total = l1 + lists.size[T2] + b2;
+			if (l1 >= c) {
+				if (b1 > 0)
+					lists.removeHead(B1);
+			} else if (total >= 2 * c && b2 > 0)
+				lists.removeHead(B2);
+			break;
+		}
+		lists.remove(vpage); // out of the ghost lists
+	}
+
+	// Head of T1 or T2 (as decided by p) - remembered in B1 or B2
+	public int victim(Process prc, Kernel krn) {
+		int t1 = lists.size[T1];
+		int victim;
+
+		if (t1 > 0 && (t1 > p || (inB2 && t1 == p) || lists.size[T2] == 0)) {
+			victim = lists.head[T1];
+			lists.addTail(B1, victim);
+		} else {
+			victim = lists.head[T2];
+			lists.addTail(B2, victim);
+		}
+		loaded.clear(victim);
+		return (victim);
+	}
+
+	public void replace(int vpage, Process prc, Kernel krn) {
+		int victim = victim(prc, krn);
+
+		// keeps |T1| + |B1| <= c once vpage is in T1 (T1 alone held the c pages -
+		// the victim is not remembered)
+		if (!ghostHit && lists.size[T1] + lists.size[B1] >= size(prc))
+			lists.removeHead(B1);
+		KernelFunctions.replacePage(victim, vpage, prc, krn);
+	}
+
+	public void pageLoaded(int vpage, Process prc) {
+		lists.addTail(ghostHit ? T2 : T1, vpage);
+		ghostHit = false;
+		inB2 = false;
+		loaded.set(vpage);
+	}
+
+	public void pageAccessed(int vpage, Process prc) {
+		int l = lists.listOf(vpage);
+
+		if (loaded.get(vpage)) // access that caused the fault
+			loaded.clear(vpage);
+		else if (l == T1 || l == T2) // referenced again - most recently used in T2
+			lists.addTail(T2, vpage);
+	}
+
+	public void pageEvicted(int vpage, Process prc) {
+		loaded.clear(vpage);
+		lists.remove(vpage);
+	}
+}
@@ -0,0 +1,164 @@
+// File: BackingStore.java
+// Description:
+//    Paging device model. Page fault requests wait in the device queue and
+//    the device serves them one I/O operation at a time. An operation takes
+//       overheadTime + seekTime * (number of runs) + transferTime * (number of pages)
+//    where a run is a set of contiguous pages of one process (read with one
+//    seek when coalescing, else each page is a run). With batching, an
+//    operation serves up to maxBatch waiting requests; with read-ahead, the
+//    pages following the faulting page in its segment (code, data, stack,
+//    heap) are read with it (prefetchPages at most, only pages not loaded).
+//    Write requests (dirty pages written back) are queued as the reads; the
+//    pages written are scattered, so each page is a run.
+//    The simulation model (MemManage) schedules the end of each operation.
+
+// Import packages
+import java.util.*;
+
+class BackingStore implements java.io.Serializable {
+	private static final long serialVersionUID = 1L;
+	// Parameters - times in the simulation time units (see MemManage.FaultTime)
+	double overheadTime; // fixed time of an I/O operation (command, interrupt)
+	double seekTime; // time to position on a run of pages
+	double transferTime; // time to transfer one page (1 / bandwidth)
+	int maxBatch; // maximum number of requests served by one operation (1 - no batching)
+	boolean coalesce; // contiguous pages of a process read in one run
+	int prefetchPages; // pages read ahead after the faulting page (0 - no read-ahead)
+	// State
+	ArrayDeque<Request> queue; // device queue - requests waiting for the device
+	boolean busy; // an operation is in progress
+	// Output
+	long numRequests; // page fault requests
+	long numServed; // page fault requests served
+	long numWriteRequests; // write back requests
+	long numPagesWritten; // pages written back
+	long numIOs; // I/O operations
+	long numRuns; // runs of contiguous pages read (seeks)
+	long numPagesTransferred; // pages transferred (faulting, prefetched and written back)
+	double busyTime; // total time of the operations
+	double waitSum; // sum of the times from request to end of operation
+
+	public BackingStore(double overheadTime, double seekTime, double transferTime, int maxBatch, boolean coalesce,
+			int prefetchPages) {
+		this.overheadTime = overheadTime;
+		this.seekTime = seekTime;
+		this.transferTime = transferTime;
+		this.maxBatch = Math.max(maxBatch, 1);
+		this.coalesce = coalesce;
+		this.prefetchPages = prefetchPages;
+		queue = new ArrayDeque<Request>();
+		busy = false;
+	}
+
+	// Adds the request of prc for vpage at time clock to the device queue
+	public void request(Process prc, int vpage, double clock) {
+		queue.add(new Request(prc, vpage, clock));
+		numRequests++;
+	}
+
+	// Adds a request to write back n dirty pages - prc waits for it (null if
+	// no process waits, e.g. for the page cleaner)
+	public void writeRequest(Process prc, int n, double clock) {
+		Request r = new Request(prc, -1, clock);
+		r.write = true;
+		r.numPages = n;
+		queue.add(r);
+		numWriteRequests++;
+	}
+
+	// Starts an operation serving the requests at the head of the queue -
+	// returns null if the device is busy or there are no requests
+	public Operation startIO() {
+		Operation op;
+		int n;
+
+		if (busy || queue.isEmpty())
+			return (null);
+		n = Math.min(maxBatch, queue.size());
+		op = new Operation(n);
+		for (int i = 0; i < n; i++) {
+			Request r = queue.poll();
+			if (r.write)
+				numPagesWritten += r.numPages;
+			else
+				r.selectPages(prefetchPages);
+			op.requests[i] = r;
+			op.numPages += r.numPages;
+			op.numRuns += (coalesce && !r.write) ? r.numRuns() : r.numPages;
+		}
+		op.serviceTime = overheadTime + seekTime * op.numRuns + transferTime * op.numPages;
+		busy = true;
+		numIOs++;
+		numRuns += op.numRuns;
+		numPagesTransferred += op.numPages;
+		busyTime += op.serviceTime;
+		return (op);
+	}
+
+	// Ends operation op at time clock
+	public void endIO(Operation op, double clock) {
+		busy = false;
+		for (Request r : op.requests)
+			if (!r.write) {
+				waitSum += clock - r.time;
+				numServed++;
+			}
+	}
+
+	// Mean time from a fault request to the end of its read operation
+	public double meanWait() {
+		return (waitSum / Math.max(1, numServed));
+	}
+
+	// Page fault request of a process
+	class Request implements java.io.Serializable {
+		private static final long serialVersionUID = 1L;
+		Process prc;
+		boolean write; // write back request
+		int vpage; // faulting page
+		double time; // time of the request
+		int[] pages; // pages read - the faulting page then the pages read ahead (increasing)
+		int numPages;
+
+		Request(Process prc, int vpage, double time) {
+			this.prc = prc;
+			this.vpage = vpage;
+			this.time = time;
+		}
+
+		// Selects the pages to read - vpage and the next pages of its segment
+		// that are not loaded (pages are chosen when the operation starts)
+		void selectPages(int prefetch) {
+			int end = Math.min(prc.segmentEnd(vpage), vpage + 1 + prefetch);
+
+			pages = new int[end - vpage];
+			pages[0] = vpage;
+			numPages = 1;
+			for (int vp = vpage + 1; vp < end; vp++)
+				if (!prc.pageTable.isValid(vp))
+					pages[numPages++] = vp;
+		}
+
+		// Number of runs of contiguous pages
+		int numRuns() {
+			int runs = 1;
+			for (int i = 1; i < numPages; i++)
+				if (pages[i] != pages[i - 1] + 1)
+					runs++;
+			return (runs);
+		}
+	}
+
+	// I/O operation of the device
+	class Operation implements java.io.Serializable {
+		private static final long serialVersionUID = 1L;
+		Request[] requests;
+		int numPages;
+		int numRuns;
+		double serviceTime;
+
+		Operation(int n) {
+			requests = new Request[n];
+		}
+	}
+}
@@ -0,0 +1,94 @@
+// File: Checkpoint.java
+// Description:
+//    State of the simulation model at a simulated time - the kernel (frames,
+//    free list, CPUs and their TLBs), every process (page table, working set,
+//    random number generators), the ready and IO queues, the device, the load
+//    control and the pending event notices - written to a compressed binary
+//    file (Java serialization, GZIP) and read back to fork runs from it (see
+//    MemManage.checkpoint, MemManage.fork). A warm-up is run once and each
+//    run forked from its checkpoint skips the transient.
+//    Not kept: the replacers of the processes (rebuilt from the resident pages
+//    by the fork - the ghost lists of ARC, CLOCKPRO and TWOQ start empty), the
+//    miss ratio curves, the outputs of the model and the live metrics.
+//    The classes saved declare a serialVersionUID: a checkpoint can be read
+//    by a build whose classes gained or lost fields (missing fields read as
+//    0 or null). Raise the serialVersionUID of a class when the meaning of its
+//    fields changes, so that older checkpoints are refused
+//    (InvalidClassException) instead of being misread.
+
+// Import packages
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+import abcmod.evschedsimul.*;
+
+class Checkpoint implements Serializable {
+	private static final long serialVersionUID = 1L;
+	double clock; // time of the checkpoint
+	PoissonBlock memoryAccesses;
+	Kernel kernel;
+	Process[] processes;
+	ConcurrentLinkedQueue<Process> readyQueue;
+	HashSet<Process> ioQueue;
+	BackingStore backingStore;
+	double cleanerPeriod;
+	int cleanerBatch;
+	LoadControl loadControl;
+	PageTableType pageTableType;
+	long numFaults; // totals at the time of the checkpoint (restart from 0 in the forks)
+	long numMemAccesses;
+	// Pending events (FEL without the stop event) - in the order they are processed
+	int[] eventNames;
+	double[] eventTimes;
+	Object[] eventObjs;
+
+	public Checkpoint(MemManage mmng) {
+		Object[] evs;
+		int n = 0;
+
+		clock = mmng.clock;
+		memoryAccesses = mmng.memoryAccesses;
+		kernel = mmng.kernel;
+		processes = mmng.processes;
+		readyQueue = mmng.readyQueue;
+		ioQueue = mmng.ioQueue;
+		backingStore = mmng.backingStore;
+		cleanerPeriod = mmng.cleanerPeriod;
+		cleanerBatch = mmng.cleanerBatch;
+		loadControl = mmng.loadControl;
+		pageTableType = mmng.pageTableType;
+		numFaults = mmng.phiStats.number;
+		numMemAccesses = mmng.numMemAccesses;
+		evs = mmng.fel.toArray(); // fel is a raw PriorityQueue in EvSched
+		Arrays.sort(evs); // in the order the events are processed (EventNotice is Comparable)
+		eventNames = new int[evs.length];
+		eventTimes = new double[evs.length];
+		eventObjs = new Object[evs.length];
+		for (Object o : evs) {
+			EventNotice ev = (EventNotice) o;
+			if (ev.eventName != mmng.StopEvent) {
+				eventNames[n] = ev.eventName;
+				eventTimes[n] = ev.timeAttr;
+				eventObjs[n++] = ev.obj;
+			}
+		}
+		eventNames = Arrays.copyOf(eventNames, n);
+		eventTimes = Arrays.copyOf(eventTimes, n);
+		eventObjs = Arrays.copyOf(eventObjs, n);
+	}
+
+	public void write(String fileName) throws IOException {
+		try (ObjectOutputStream out = new ObjectOutputStream(
+				new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(fileName))))) {
+			out.writeObject(this);
+		}
+	}
+
+	public static Checkpoint read(String fileName) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream in = new ObjectInputStream(
+				new GZIPInputStream(new BufferedInputStream(new FileInputStream(fileName))))) {
+			return ((Checkpoint) in.readObject());
+		}
+	}
+}
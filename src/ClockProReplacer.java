@@ -0,0 +1,232 @@
+import java.util.BitSet;
+
+// CLOCK-Pro replacement (Jiang, Chen and Zhang)
+// The resident pages are hot (short reuse distance) or cold. A cold page is
+// given a test period when it is loaded; it is kept in the clock as a
+// non-resident page after being replaced until its test period ends. A cold
+// page referenced during its test period becomes hot. Three hands move over
+// one circular list of pages:
+// handCold - replaces the first cold page not referenced (victims are always cold)
+// handHot - turns hot pages not referenced into cold pages, ends test periods
+// handTest - ends test periods, removing the non-resident pages from the clock
+// The target number of resident cold pages (coldTarget) grows when a page is
+// referenced during its test period and shrinks when a test period ends
+// without a reference.
+class ClockProReplacer implements PageReplacer {
+	int[] prev; // circular list of the pages in the clock (indexed by page)
+	int[] next;
+	BitSet inClock; // page is in the clock
+	BitSet resident; // page is loaded in a frame
+	BitSet hot; // page is hot
+	BitSet test; // cold page is in its test period
+	BitSet ref; // page referenced since the last pass of a hand
+	BitSet loaded; // pages loaded whose first access is still to come
+	int handHot; // page under each hand (-1 if the clock is empty)
+	int handCold;
+	int handTest;
+	int numHot; // number of hot pages
+	int numNonResident; // number of non-resident pages in the clock
+	int coldTarget; // target number of resident cold pages
+	boolean promote; // page being loaded was in its test period - loaded hot
+
+	public ClockProReplacer(Process prc) {
+		prev = new int[prc.numPages];
+		next = new int[prc.numPages];
+		inClock = new BitSet(prc.numPages);
+		resident = new BitSet(prc.numPages);
+		hot = new BitSet(prc.numPages);
+		test = new BitSet(prc.numPages);
+		ref = new BitSet(prc.numPages);
+		loaded = new BitSet(prc.numPages);
+		handHot = handCold = handTest = -1;
+		numHot = 0;
+		numNonResident = 0;
+		coldTarget = Math.max(size(prc) / 2, 1);
+	}
+
+	// Number of frames - the frames allocated to the process
+	int size(Process prc) {
+		return (Math.max(prc.numAllocatedFrames, 1));
+	}
+
+	// Target number of hot pages
+	int hotTarget(Process prc) {
+		return (Math.max(size(prc) - coldTarget, 0));
+	}
+
+	void adaptColdTarget(int delta, Process prc) {
+		coldTarget = Math.max(1, Math.min(size(prc) - 1, coldTarget + delta));
+	}
+
+	// Inserts vpage at the head of the clock - just behind handHot, so that
+	// it is the last page reached by the hands
+	void insertHead(int vpage) {
+		if (handHot == -1) {
+			prev[vpage] = next[vpage] = vpage;
+			handHot = handCold = handTest = vpage;
+		} else {
+			next[vpage] = handHot;
+			prev[vpage] = prev[handHot];
+			next[prev[handHot]] = vpage;
+			prev[handHot] = vpage;
+		}
+		inClock.set(vpage);
+	}
+
+	// Removes vpage from the clock, moving forward the hands pointing to it
+	void unlink(int vpage) {
+		int nxt = (next[vpage] == vpage) ? -1 : next[vpage];
+
+		if (handHot == vpage)
+			handHot = nxt;
+		if (handCold == vpage)
+			handCold = nxt;
+		if (handTest == vpage)
+			handTest = nxt;
+		next[prev[vpage]] = next[vpage];
+		prev[next[vpage]] = prev[vpage];
+		inClock.clear(vpage);
+	}
+
+	void moveToHead(int vpage) {
+		unlink(vpage);
+		insertHead(vpage);
+	}
+
+	// Ends the test period of cold page vp, removing it if it is non-resident
+	void endTest(int vp, Process prc) {
+		test.clear(vp);
+		adaptColdTarget(-1, prc); // not referenced during its test period
+		if (!resident.get(vp)) {
+			unlink(vp);
+			numNonResident--;
+		}
+	}
+
+	// handHot turns the first hot page not referenced into a cold page
+	void runHandHot(Process prc) {
+		int vp;
+
+		while (numHot > 0) {
+			vp = handHot;
+			handHot = next[vp];
+			if (hot.get(vp)) {
+				if (!ref.get(vp)) {
+					hot.clear(vp);
+					numHot--;
+					return;
+				}
+				ref.clear(vp);
+			} else if (test.get(vp))
+				endTest(vp, prc);
+		}
+	}
+
+	// handTest removes the oldest non-resident page from the clock
+	void runHandTest(Process prc) {
+		int vp;
+
+		while (numNonResident > 0) {
+			vp = handTest;
+			handTest = next[vp];
+			if (!hot.get(vp) && test.get(vp)) {
+				boolean nonResident = !resident.get(vp);
+				endTest(vp, prc);
+				if (nonResident)
+					return;
+			}
+		}
+	}
+
+	// handCold returns the first resident cold page not referenced
+	int runHandCold(Process prc) {
+		int vp;
+
+		while (numHot >= prc.numFramesUsed) // no resident cold page
+			runHandHot(prc);
+		while (true) {
+			vp = handCold;
+			handCold = next[vp];
+			if (resident.get(vp) && !hot.get(vp)) {
+				if (!ref.get(vp))
+					break;
+				ref.clear(vp);
+				if (test.get(vp)) { // referenced during its test period - becomes hot
+					test.clear(vp);
+					hot.set(vp);
+					numHot++;
+					adaptColdTarget(1, prc);
+					moveToHead(vp);
+					// hotTarget is set from the allocation - with fewer pages resident
+					// (no free frame left), a resident cold page is kept so the hand
+					// finds a victim
+					while ((numHot > hotTarget(prc)) || (numHot >= prc.numFramesUsed))
+						runHandHot(prc);
+				} else { // gets a new test period
+					test.set(vp);
+					moveToHead(vp);
+				}
+			}
+		}
+		resident.clear(vp);
+		if (test.get(vp)) { // stays in the clock until its test period ends
+			numNonResident++;
+			while (numNonResident > size(prc))
+				runHandTest(prc);
+		} else
+			unlink(vp);
+		return (vp);
+	}
+
+	public void pageFault(int vpage, Process prc) {
+		promote = false;
+		if (inClock.get(vpage)) { // non-resident page in its test period
+			promote = true;
+			adaptColdTarget(1, prc);
+			test.clear(vpage);
+			unlink(vpage);
+			numNonResident--;
+		}
+	}
+
+	public int victim(Process prc, Kernel krn) {
+		int victim = runHandCold(prc);
+		loaded.clear(victim);
+		ref.clear(victim);
+		return (victim);
+	}
+
+	public void pageLoaded(int vpage, Process prc) {
+		resident.set(vpage);
+		ref.clear(vpage);
+		if (promote) {
+			hot.set(vpage);
+			numHot++;
+		} else
+			test.set(vpage);
+		insertHead(vpage);
+		loaded.set(vpage);
+		promote = false;
+		while (numHot > hotTarget(prc))
+			runHandHot(prc);
+	}
+
+	public void pageAccessed(int vpage, Process prc) {
+		if (loaded.get(vpage)) // access that caused the fault
+			loaded.clear(vpage);
+		else if (resident.get(vpage))
+			ref.set(vpage);
+	}
+
+	public void pageEvicted(int vpage, Process prc) {
+		if (hot.get(vpage))
+			numHot--;
+		hot.clear(vpage);
+		test.clear(vpage);
+		ref.clear(vpage);
+		loaded.clear(vpage);
+		resident.clear(vpage);
+		if (inClock.get(vpage))
+			unlink(vpage);
+	}
+}
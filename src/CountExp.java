@@ -34,9 +34,11 @@ class CountExp
        // Loop for NUMRUN simulation runs
        System.out.println("Running simulation");
        mmng = new MemManage(PagingAlgorithm.COUNT,startTime,endTime,sds);
+       mmng.registerMetrics();
        mmng.runSimulation();
+       mmng.unregisterMetrics();
        mmng.computeOutput();
-       System.out.println("Number of faults: "+mmng.phiTimeBtwFaults.number);
+       System.out.println("Number of faults: "+mmng.phiStats.number);
        System.out.println("Number memory accesses (no faults): "+mmng.numMemAccesses);
        System.out.println("Number of faults per 1000 references: "+mmng.numPer1000);
    }
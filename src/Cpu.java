@@ -0,0 +1,50 @@
+// File: Cpu.java
+// Description:
+//    A processor of the simulated system - the process it executes, the
+//    next action of its kernel (see MemManage.preConditions) and its TLB.
+//    The CPUs share the frames, the ready queue and the paging device; a CPU
+//    whose process faults executes the next ready process, and is idle
+//    (stalled) when all the processes wait for their faults.
+
+class Cpu implements java.io.Serializable {
+	private static final long serialVersionUID = 1L;
+	int id;
+	Process processExecuting; // executing process (null - idle)
+	Kaction action; // Action to be taken - set to:
+	// ACCESSING - in the middle of accessing memory
+	// MEMACESS - next action is to access memory no page fault
+	// PAGEFAULT - next action is to access memory with page fault
+	// IDLE - no process to execute
+	Tlb tlb; // translation lookaside buffer (null - none)
+	boolean tlbMiss; // the current memory access missed in the TLB (page table walked)
+	// Output
+	long numMemAccesses; // memory accesses with no page faults
+	long numFaults; // page faults of the processes executed
+	long numStalls; // times the CPU became idle
+	double idleTime; // total time idle
+	double idleSince; // start of the current idle period (if idle)
+
+	public Cpu(int id, double clock) {
+		this.id = id;
+		action = Kaction.IDLE;
+		idleSince = clock;
+	}
+
+	// The CPU becomes idle at time clock
+	void idle(double clock) {
+		action = Kaction.IDLE;
+		idleSince = clock;
+		numStalls++;
+	}
+
+	// The CPU leaves the idle state at time clock
+	void busy(double clock) {
+		if (action == Kaction.IDLE)
+			idleTime += clock - idleSince;
+	}
+
+	// Idle time up to time clock
+	public double idleTime(double clock) {
+		return ((action == Kaction.IDLE) ? idleTime + clock - idleSince : idleTime);
+	}
+}
@@ -0,0 +1,59 @@
+// File: CpuExp.java
+// Description:
+//    Effect of the number of CPUs - runs the simulation with 1 to 6 CPUs
+//    sharing the frames and the ready queue, without a device model (each
+//    fault takes FaultTime, in parallel) and with one paging device (faults
+//    queued, see BackingStore). Reports the throughput and its speedup over
+//    one CPU, the fault rate and, for each CPU, its accesses, the faults of
+//    its processes, the times it stalled (no ready process) and the fraction
+//    of the time it was idle.
+//    Usage: CpuExp [pagingAlgorithm] [endTime] [replication]
+
+// Import packages
+import java.lang.*;
+import java.util.*;
+
+// Main Method: Experiments
+//
+class CpuExp {
+	public static void main(String[] args) {
+		double startTime = 0.0, endTime = 5000000; // 5 seconds
+		PagingAlgorithm alg = PagingAlgorithm.LRU;
+		int rep = 0;
+		MemManage mmng;
+		double base = 0; // throughput with one CPU
+
+		if (args.length > 0)
+			alg = PagingAlgorithm.valueOf(args[0]);
+		if (args.length > 1)
+			endTime = Double.parseDouble(args[1]);
+		if (args.length > 2)
+			rep = Integer.parseInt(args[2]);
+
+		for (boolean device : new boolean[] { false, true })
+			for (int n : new int[] { 1, 2, 3, 4, 6 }) {
+				System.out.println("Running simulation using " + alg + " with " + n + " CPUs"
+						+ (device ? ", one paging device" : ", no device model"));
+				mmng = new MemManage(alg, startTime, endTime, ReplicationExp.repSeeds(rep));
+				if (device)
+					mmng.setBackingStore(new BackingStore(10, 80, 10, 1, true, 0));
+				mmng.setCpus(n);
+				mmng.runSimulation();
+				mmng.computeOutput();
+				double throughput = mmng.numMemAccesses / ((mmng.timef - mmng.time0) / 1000000);
+				if (n == 1)
+					base = throughput;
+				System.out.println(String.format("Memory accesses per simulated second: %d (speedup %.2f)",
+						(long) throughput, throughput / base));
+				System.out.println("Number of faults per 1000 references: " + mmng.numPer1000);
+				if (device)
+					System.out.println(String.format("Device utilization %.3f, mean fault wait %.1f",
+							mmng.backingStore.busyTime / (mmng.clock - mmng.time0), mmng.backingStore.meanWait()));
+				for (Cpu cpu : mmng.kernel.cpus)
+					System.out.println(String.format("   CPU %d: %d accesses, %d faults, %d stalls, idle %.3f", cpu.id,
+							cpu.numMemAccesses, cpu.numFaults, cpu.numStalls,
+							cpu.idleTime(mmng.clock) / (mmng.clock - mmng.time0)));
+				System.out.println();
+			}
+	}
+}
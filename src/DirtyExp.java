@@ -0,0 +1,51 @@
+// File: DirtyExp.java
+// Description:
+//    Cost of the dirty pages - for CLOCK, enhanced second chance CLOCK
+//    (ESCLOCK, prefers clean pages), LRU and FIFO, runs the simulation
+//    without and with the page cleaner, and reports the fault rate, the
+//    dirty pages written back and the throughput. A dirty page replaced by
+//    a fault is written back before the process continues (WriteBackTime).
+//    Usage: DirtyExp [endTime] [replication] [cleanerPeriod] [cleanerBatch]
+
+// Import packages
+import java.lang.*;
+import java.util.*;
+
+// Main Method: Experiments
+//
+class DirtyExp {
+	public static void main(String[] args) {
+		double startTime = 0.0, endTime = 5000000; // 5 seconds
+		int rep = 0;
+		double cleanerPeriod = 500;
+		int cleanerBatch = 4;
+		MemManage mmng;
+
+		if (args.length > 0)
+			endTime = Double.parseDouble(args[0]);
+		if (args.length > 1)
+			rep = Integer.parseInt(args[1]);
+		if (args.length > 2)
+			cleanerPeriod = Double.parseDouble(args[2]);
+		if (args.length > 3)
+			cleanerBatch = Integer.parseInt(args[3]);
+
+		for (PagingAlgorithm alg : new PagingAlgorithm[] { PagingAlgorithm.CLOCK, PagingAlgorithm.ESCLOCK,
+				PagingAlgorithm.LRU, PagingAlgorithm.FIFO })
+			for (boolean cleaner : new boolean[] { false, true }) {
+				System.out.println("Running simulation using " + alg + (cleaner ? " with" : " without")
+						+ " page cleaner");
+				mmng = new MemManage(alg, startTime, endTime, ReplicationExp.repSeeds(rep));
+				if (cleaner)
+					mmng.setPageCleaner(cleanerPeriod, cleanerBatch);
+				mmng.runSimulation();
+				mmng.computeOutput();
+				System.out.println("Memory accesses per simulated second: "
+						+ (long) (mmng.numMemAccesses / ((mmng.timef - mmng.time0) / 1000000)));
+				System.out.println(String.format("Dirty pages written back per 1000 references: %.1f",
+						1000.0 * (mmng.kernel.numWriteBacks + mmng.kernel.numCleaned)
+								/ (mmng.numMemAccesses + mmng.phiStats.number)));
+				AllocExp.printOutput(mmng);
+			}
+	}
+}
@@ -0,0 +1,62 @@
+// File: ForkExp.java
+// Description:
+//    Checkpoint and fork - runs the warm-up once (LRU), checkpoints the model
+//    (see Checkpoint) and forks the checkpoint into FIFO, CLOCK, LRU and
+//    COUNT, which all continue from the same warmed-up state with the same
+//    random number streams. Each fork is compared with a cold run of the
+//    algorithm from time 0 (its output includes the transient) - fault rate
+//    and wall-clock time of the run.
+//    Usage: ForkExp [warmupTime] [endTime] [replication]
+
+// Import packages
+import java.lang.*;
+import java.util.*;
+import java.io.*;
+
+// Main Method: Experiments
+//
+class ForkExp {
+	public static void main(String[] args) throws IOException {
+		double startTime = 0.0, warmupTime = 500000, endTime = 5000000; // 5 seconds
+		PagingAlgorithm[] algs = { PagingAlgorithm.FIFO, PagingAlgorithm.CLOCK, PagingAlgorithm.LRU,
+				PagingAlgorithm.COUNT };
+		int rep = 0;
+		MemManage mmng;
+		File file = File.createTempFile("memmanage", ".ckpt");
+		long t;
+
+		file.deleteOnExit();
+		if (args.length > 0)
+			warmupTime = Double.parseDouble(args[0]);
+		if (args.length > 1)
+			endTime = Double.parseDouble(args[1]);
+		if (args.length > 2)
+			rep = Integer.parseInt(args[2]);
+
+		System.out.println("Warming up using LRU up to time " + warmupTime);
+		t = System.nanoTime();
+		mmng = new MemManage(PagingAlgorithm.LRU, startTime, warmupTime, ReplicationExp.repSeeds(rep));
+		mmng.runSimulation();
+		mmng.checkpoint(file.getPath());
+		System.out.println(String.format("Checkpoint at time %.0f: %d bytes (%.0f ms)", mmng.clock, file.length(),
+				(System.nanoTime() - t) / 1e6));
+		System.out.println();
+
+		for (PagingAlgorithm alg : algs) {
+			System.out.println("Running simulation using " + alg);
+			t = System.nanoTime();
+			mmng = MemManage.fork(file.getPath(), alg, endTime);
+			mmng.runSimulation();
+			mmng.computeOutput();
+			System.out.println(String.format("Forked at %.0f: %d faults, %d per 1000 references (%.0f ms)",
+					mmng.time0, mmng.phiStats.number, mmng.numPer1000, (System.nanoTime() - t) / 1e6));
+			t = System.nanoTime();
+			mmng = new MemManage(alg, startTime, endTime, ReplicationExp.repSeeds(rep));
+			mmng.runSimulation();
+			mmng.computeOutput();
+			System.out.println(String.format("Cold from 0: %d faults, %d per 1000 references (%.0f ms)",
+					mmng.phiStats.number, mmng.numPer1000, (System.nanoTime() - t) / 1e6));
+			System.out.println();
+		}
+	}
+}
@@ -0,0 +1,41 @@
+// File: GlobalExp.java
+// Description:
+//    Compares local replacement (each process replaces its own pages) with
+//    global replacement (the victim can be any frame) - reports throughput in
+//    memory accesses per simulated second and per process fault rates. With
+//    global replacement a process holds as many frames as its faults take
+//    (no allocation policy). ARC, CLOCKPRO, TWOQ and OPT have no global
+//    variant (see MemManage.setGlobalReplacement).
+//    Usage: GlobalExp [endTime] [replication]
+
+// Import packages
+import java.lang.*;
+import java.util.*;
+
+// Main Method: Experiments
+//
+class GlobalExp {
+	public static void main(String[] args) {
+		double startTime = 0.0, endTime = 5000000; // 5 seconds
+		int rep = 0;
+		MemManage mmng;
+
+		if (args.length > 0)
+			endTime = Double.parseDouble(args[0]);
+		if (args.length > 1)
+			rep = Integer.parseInt(args[1]);
+
+		for (PagingAlgorithm alg : new PagingAlgorithm[] { PagingAlgorithm.FIFO, PagingAlgorithm.CLOCK,
+				PagingAlgorithm.LRU, PagingAlgorithm.COUNT })
+			for (boolean global : new boolean[] { false, true }) {
+				System.out.println("Running simulation using " + (global ? "global " : "local ") + alg);
+				mmng = new MemManage(alg, startTime, endTime, ReplicationExp.repSeeds(rep));
+				mmng.setGlobalReplacement(global);
+				mmng.runSimulation();
+				mmng.computeOutput();
+				System.out.println("Memory accesses per simulated second: "
+						+ (long) (mmng.numMemAccesses / ((mmng.timef - mmng.time0) / 1000000)));
+				AllocExp.printOutput(mmng);
+			}
+	}
+}
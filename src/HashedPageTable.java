@@ -0,0 +1,232 @@
+// File: HashedPageTable.java
+// Description:
+//    Hashed page table - one hash table (Store) for all the processes, keyed
+//    by (pid, vpage), with open addressing (linear probing). An entry is
+//    added when a field of the page is first set, and deleted when the page
+//    is invalid and clean (backward shift deletion, so probe sequences stay
+//    valid) - the other fields of such a page read as 0 again. The table
+//    doubles when half full and halves when less than an eighth full (not
+//    below its initial capacity): its size follows the resident pages, not
+//    the address spaces. Each process has a HashedPageTable giving its view
+//    of the store.
+
+class HashedPageTable implements PageTable {
+	private static final long serialVersionUID = 1L;
+	Store store; // shared by the processes
+	int pid;
+	int numPages;
+	int numEntries; // entries of the process in the store
+
+	public HashedPageTable(Store store, int pid, int numPages) {
+		this.store = store;
+		this.pid = pid;
+		this.numPages = numPages;
+	}
+
+	// Returns the slot of vpage - -1 if no entry and not create
+	int slot(int vpage, boolean create) {
+		int s = store.find(((long) pid << 32) | vpage, create);
+		if (store.added) {
+			numEntries++;
+			store.added = false;
+		}
+		return (s);
+	}
+
+	boolean flag(int vpage, byte f) {
+		int s = slot(vpage, false);
+		return ((s != -1) && ((store.flags[s] & f) != 0));
+	}
+
+	void setFlag(int vpage, byte f, boolean b) {
+		int s = slot(vpage, b);
+
+		if (s == -1) // clearing an entry never set
+			return;
+		store.flags[s] = (byte) (b ? store.flags[s] | f : store.flags[s] & ~f);
+		if ((store.flags[s] & (RadixPageTable.Valid | RadixPageTable.Dirty)) == 0) { // invalid and clean
+			store.delete(s);
+			numEntries--;
+		}
+	}
+
+	public int size() {
+		return (numPages);
+	}
+
+	public int getFrame(int vpage) {
+		int s = slot(vpage, false);
+		return ((s == -1) ? 0 : store.frame[s]);
+	}
+
+	public void setFrame(int vpage, int fr) {
+		int s = slot(vpage, true); // before store.frame - the store may grow
+		store.frame[s] = fr;
+	}
+
+	public boolean isValid(int vpage) {
+		return (flag(vpage, RadixPageTable.Valid));
+	}
+
+	public void setValid(int vpage, boolean b) {
+		setFlag(vpage, RadixPageTable.Valid, b);
+	}
+
+	public boolean isUsed(int vpage) {
+		return (flag(vpage, RadixPageTable.Used));
+	}
+
+	public void setUsed(int vpage, boolean b) {
+		setFlag(vpage, RadixPageTable.Used, b);
+	}
+
+	public boolean isDirty(int vpage) {
+		return (flag(vpage, RadixPageTable.Dirty));
+	}
+
+	public void setDirty(int vpage, boolean b) {
+		setFlag(vpage, RadixPageTable.Dirty, b);
+	}
+
+	public long getStamp(int vpage) {
+		int s = slot(vpage, false);
+		return ((s == -1) ? 0 : store.stamp[s]);
+	}
+
+	public void setStamp(int vpage, long stamp) {
+		int s = slot(vpage, true); // before store.stamp - the store may grow
+		store.stamp[s] = stamp;
+	}
+
+	public int getCount(int vpage) {
+		int s = slot(vpage, false);
+		return ((s == -1) ? 0 : store.count[s]);
+	}
+
+	public void setCount(int vpage, int cnt) {
+		int s = slot(vpage, true); // before store.count - the store may grow
+		store.count[s] = cnt;
+	}
+
+	// One entry read per slot probed
+	public int walkCost(int vpage) {
+		slot(vpage, false);
+		return (store.probes);
+	}
+
+	// Share of the store - in proportion to the entries of the process
+	public long footprint() {
+		return (store.footprint() * numEntries / Math.max(1, store.size));
+	}
+
+	// Hash table of the entries of all processes
+	static class Store implements java.io.Serializable {
+		private static final long serialVersionUID = 1L;
+		static final long Empty = -1;
+		long[] key; // (pid << 32) | vpage, Empty if the slot is free
+		int[] frame;
+		long[] stamp;
+		int[] count;
+		byte[] flags; // RadixPageTable Valid, Used and Dirty bits
+		int size; // number of entries
+		int minCapacity; // the table is not shrunk below this number of slots
+		int probes; // slots probed by the last find
+		boolean added; // the last find added an entry
+
+		public Store(int capacity) {
+			int n = Integer.highestOneBit(Math.max(capacity, 8) - 1) << 1; // power of 2
+			minCapacity = n;
+			allocate(n);
+		}
+
+		void allocate(int n) {
+			key = new long[n];
+			java.util.Arrays.fill(key, Empty);
+			frame = new int[n];
+			stamp = new long[n];
+			count = new int[n];
+			flags = new byte[n];
+			size = 0;
+		}
+
+		// Home slot of key k
+		int home(long k) {
+			return ((int) ((k * 0x9E3779B97F4A7C15L) >>> 32) & (key.length - 1));
+		}
+
+		// Returns the slot of k - adds an entry if none and create, else -1
+		int find(long k, boolean create) {
+			int mask = key.length - 1;
+			int s = home(k);
+
+			probes = 1;
+			while (key[s] != k) {
+				if (key[s] == Empty) {
+					if (!create)
+						return (-1);
+					if (2 * (size + 1) > key.length) { // half full - double
+						rehash(2 * key.length);
+						return (find(k, true));
+					}
+					key[s] = k;
+					size++;
+					added = true;
+					return (s);
+				}
+				s = (s + 1) & mask;
+				probes++;
+			}
+			return (s);
+		}
+
+		// Deletes the entry in slot s - the entries after it in its probe run
+		// that may use the slot are shifted back, the other slots do not change
+		void delete(int s) {
+			int mask = key.length - 1;
+			int j = s;
+
+			while (key[j = (j + 1) & mask] != Empty)
+				if (((j - home(key[j])) & mask) >= ((j - s) & mask)) { // s is between its home and j
+					key[s] = key[j];
+					frame[s] = frame[j];
+					stamp[s] = stamp[j];
+					count[s] = count[j];
+					flags[s] = flags[j];
+					s = j;
+				}
+			key[s] = Empty;
+			frame[s] = 0;
+			stamp[s] = 0;
+			count[s] = 0;
+			flags[s] = 0;
+			size--;
+			if ((8 * size < key.length) && (key.length > minCapacity)) // an eighth full - halve
+				rehash(key.length / 2);
+		}
+
+		// Moves the entries to a table of n slots
+		void rehash(int n) {
+			long[] oldKey = key;
+			int[] oldFrame = frame;
+			long[] oldStamp = stamp;
+			int[] oldCount = count;
+			byte[] oldFlags = flags;
+			int s;
+
+			allocate(n);
+			for (int i = 0; i < oldKey.length; i++)
+				if (oldKey[i] != Empty) {
+					s = find(oldKey[i], true);
+					frame[s] = oldFrame[i];
+					stamp[s] = oldStamp[i];
+					count[s] = oldCount[i];
+					flags[s] = oldFlags[i];
+				}
+			added = false;
+		}
+
+		public long footprint() {
+			return ((long) key.length * (8 + 4 + 8 + 4 + 1));
+		}
+	}
+}
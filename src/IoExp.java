@@ -0,0 +1,76 @@
+// File: IoExp.java
+// Description:
+//    Effect of the paging device on throughput - runs the simulation without
+//    a device model (each fault takes FaultTime, in parallel), then with a
+//    backing store (see BackingStore) without and with batching, and with
+//    read-ahead of 1, 2 and 4 pages with and without coalescing. An I/O of one
+//    page takes overhead + seek + transfer = 10 + 80 + 10 = FaultTime.
+//    Pages read ahead are loaded as most recently used (see
+//    KernelFunctions.prefetchPage).
+//    Usage: IoExp [pagingAlgorithm] [endTime] [replication]
+
+// Import packages
+import java.lang.*;
+import java.util.*;
+
+// Main Method: Experiments
+//
+class IoExp {
+	public static void main(String[] args) {
+		double startTime = 0.0, endTime = 5000000; // 5 seconds
+		PagingAlgorithm alg = PagingAlgorithm.LRU;
+		int rep = 0;
+		MemManage mmng;
+		// maxBatch, coalesce, prefetchPages of each configuration
+		int[][] configs = { { 1, 1, 0 }, { 8, 1, 0 }, { 8, 1, 1 }, { 8, 1, 2 }, { 8, 1, 4 }, { 8, 0, 4 } };
+
+		if (args.length > 0)
+			alg = PagingAlgorithm.valueOf(args[0]);
+		if (args.length > 1)
+			endTime = Double.parseDouble(args[1]);
+		if (args.length > 2)
+			rep = Integer.parseInt(args[2]);
+
+		System.out.println("Running simulation using " + alg + " without device model");
+		mmng = new MemManage(alg, startTime, endTime, ReplicationExp.repSeeds(rep));
+		mmng.runSimulation();
+		mmng.computeOutput();
+		printOutput(mmng);
+		for (int[] cfg : configs) {
+			System.out.println("Running simulation using " + alg + " with backing store: batch " + cfg[0]
+					+ (cfg[1] == 1 ? ", coalescing" : ", no coalescing") + ", read-ahead " + cfg[2] + " pages");
+			mmng = new MemManage(alg, startTime, endTime, ReplicationExp.repSeeds(rep));
+			mmng.setBackingStore(new BackingStore(10, 80, 10, cfg[0], cfg[1] == 1, cfg[2]));
+			mmng.runSimulation();
+			mmng.computeOutput();
+			printOutput(mmng);
+		}
+	}
+
+	static void printOutput(MemManage mmng) {
+		BackingStore bs = mmng.backingStore;
+		long prefetched = 0, hits = 0;
+
+		System.out.println("Memory accesses per simulated second: "
+				+ (long) (mmng.numMemAccesses / ((mmng.timef - mmng.time0) / 1000000)));
+		System.out.println("Number of faults per 1000 references: " + mmng.numPer1000);
+		System.out.println("Dirty pages written back: " + mmng.kernel.numWriteBacks + " replaced, "
+				+ mmng.kernel.numCleaned + " by the page cleaner");
+		if (bs != null) {
+			for (Process prc : mmng.processes) {
+				prefetched += prc.numPrefetched;
+				hits += prc.numPrefetchHits;
+			}
+			System.out.println(String.format(
+					"Device: %d operations, %.2f requests and %.2f pages per operation, utilization %.3f, mean fault wait %.1f",
+					bs.numIOs, (double) (bs.numRequests + bs.numWriteRequests) / Math.max(1, bs.numIOs),
+					(double) bs.numPagesTransferred / Math.max(1, bs.numIOs), bs.busyTime / (mmng.clock - mmng.time0),
+					bs.meanWait()));
+			System.out.println("Device: " + bs.numPagesWritten + " pages written back");
+			if (bs.prefetchPages > 0)
+				System.out.println(String.format("Pages read ahead: %d, referenced before replaced: %.1f%%",
+						prefetched, 100.0 * hits / Math.max(1, prefetched)));
+		}
+		System.out.println();
+	}
+}
@@ -1,3 +1,5 @@
+import java.util.Arrays;
+import java.util.BitSet;
 
 
 public class KernelFunctions {
@@ -7,26 +9,70 @@ public class KernelFunctions {
 	// Methods for supporting page replacement
 	// ******************************************************************
 
-	// the following method calls a page replacement method once
-	// all allocated frames have been used up
-	// DO NOT CHANGE this method
+	// Page fault of prc on vpage - counts the fault, lets the allocation
+	// policy adjust the allocation (local replacement) and loads the page
+	// (see loadPage - in a free frame or in place of a victim of the
+	// replacement strategy, locally or among all the frames)
 	public static void pageReplacement(int vpage, Process prc, Kernel krn) {
-		if (prc.pageTable[vpage].valid)
+		if (prc.pageTable.isValid(vpage))
 			return; // no need to replace
 
-		if (!prc.areAllocatedFramesFull()) // room to get frames in allocated list
+		prc.numFaults++;
+		if (prc.prefetched != null)
+			prc.prefetched.clear(vpage); // page read ahead was replaced before being referenced
+		if (!krn.globalReplacement)
+			adjustAllocation(prc, krn); // dynamic allocation policies adjust the allocation at each fault
+		loadPage(vpage, prc, krn);
+	}
+
+	// Loads vpage of prc read ahead by the backing store at time clock - as for
+	// a page fault, but the fault count and the allocation are not changed. The
+	// page is inserted as most recently used by every algorithm: marked used
+	// (CLOCK), at the end of the recency list and stamped with the time it was
+	// read (LRU and LRUSCAN - the same victims), so that it is not replaced
+	// before it can be referenced.
+	public static void prefetchPage(int vpage, Process prc, Kernel krn, double clock) {
+		if (prc.pageTable.isValid(vpage))
+			return;
+		loadPage(vpage, prc, krn);
+		if (prc.pageTable.isValid(vpage)) {
+			prc.pageTable.setUsed(vpage, true);
+			prc.pageTable.setStamp(vpage, (long) clock); // loadPage put it at the end of the recency list
+			prc.prefetched.set(vpage);
+			prc.numPrefetched++;
+		}
+	}
+
+	// Loads vpage in a free frame or in place of a page chosen by the
+	// replacement algorithm
+	public static void loadPage(int vpage, Process prc, Kernel krn) {
+		replacer(prc, krn).pageFault(vpage, prc);
+		if (krn.globalReplacement) // replacement over the frames of all processes
+			globalPageReplacement(vpage, prc, krn);
+		else if ((!prc.areAllocatedFramesFull()) && (krn.numFree > 0)) // room to get frames in allocated list
 			addPageFrame(vpage, prc, krn);
-		else
+		else if (prc.numFramesUsed > 0)
 			pageReplAlgorithm(vpage, prc, krn);
+		else if (stealFrame(prc, krn)) // no frame (e.g. swapped out) and none free
+			addPageFrame(vpage, prc, krn);
+		else
+			System.out.println("No frame available for process " + prc.pid);
+		if (prc.pageTable.isValid(vpage))
+			prc.replacer.pageLoaded(vpage, prc);
+	}
+
+	// Returns the page replacement strategy of prc (created at its first page fault)
+	public static PageReplacer replacer(Process prc, Kernel krn) {
+		if (prc.replacer == null)
+			prc.replacer = krn.newReplacer(prc);
+		return (prc.replacer);
 	}
 
-	// This method will all a page frame to the list of allocated
-	// frames for the process and load it with the virtual page
-	// DO NOT CHANGE this method
+	// Takes a frame from the kernel free list (in the order of
+	// Kernel.freeListOrder), adds it to the allocated frames of prc and loads
+	// vpage in it as the most recently used page
 	public static void addPageFrame(int vpage, Process prc, Kernel krn) {
-		int[] fl; // new frame list
 		int freeFrame; // a frame from the free list
-		int i;
 		// Get a free frame and update the allocated frame list
 		freeFrame = krn.getNextFreeFrame(); // gets next free frame
 		if (freeFrame == -1) // list must be empty - print error message and return
@@ -34,39 +80,50 @@ public class KernelFunctions {
 			System.out.println("Could not get a free frame");
 			return;
 		}
-		if (prc.allocatedFrames == null) // No frames allocated yet
-		{
-			prc.allocatedFrames = new int[1];
-			prc.allocatedFrames[0] = freeFrame;
-		} else // some allocated but can get more
-		{
-			fl = new int[prc.allocatedFrames.length + 1];
-			for (i = 0; i < prc.allocatedFrames.length; i++)
-				fl[i] = prc.allocatedFrames[i];
-			fl[i] = freeFrame; // adds free frame to the free list
-			prc.allocatedFrames = fl; // keep new list
-		}
+		appendAllocatedFrame(freeFrame, prc);
 		// update Page Table
-		prc.pageTable[vpage].frameNum = freeFrame;
-		prc.pageTable[vpage].valid = true;
+		prc.pageTable.setFrame(vpage, freeFrame);
+		prc.pageTable.setValid(vpage, true);
+		prc.pageTable.setCount(vpage, 0);
+		krn.mapFrame(freeFrame, prc, vpage); // update the inverted frame table
+		lruTouch(vpage, prc); // newly loaded page is most recently used
+	}
+
+	// Adds frame fr to the end of the allocated frame list of prc
+	public static void appendAllocatedFrame(int fr, Process prc) {
+		if (prc.numFramesUsed == prc.allocatedFrames.length) // allocation has grown
+			prc.allocatedFrames = Arrays.copyOf(prc.allocatedFrames, 2 * prc.allocatedFrames.length);
+		prc.allocatedFrames[prc.numFramesUsed] = fr; // adds free frame to the allocated list
+		prc.numFramesUsed++;
+	}
+
+	// Removes entry ix from the allocated frame list of prc (keeping the order of the other frames)
+	public static void removeAllocatedFrame(int ix, Process prc) {
+		System.arraycopy(prc.allocatedFrames, ix + 1, prc.allocatedFrames, ix, prc.numFramesUsed - ix - 1);
+		prc.numFramesUsed--;
+		if (prc.framePtr > ix)
+			prc.framePtr--;
+		if (prc.framePtr >= prc.numFramesUsed)
+			prc.framePtr = 0;
 	}
 
-	// Calls to Replacement algorithm
+	// Calls to Replacement algorithm - the strategy of the process
 	public static void pageReplAlgorithm(int vpage, Process prc, Kernel krn) {
-		switch (krn.pagingAlgorithm) {
-		case FIFO:
-			pageReplAlgorithmFIFO(vpage, prc);
-			break;
-		case LRU:
-			pageReplAlgorithmLRU(vpage, prc);
-			break;
-		case CLOCK:
-			pageReplAlgorithmCLOCK(vpage, prc);
-			break;
-		case COUNT:
-			pageReplAlgorithmCOUNT(vpage, prc);
-			break;
-		}
+		replacer(prc, krn).replace(vpage, prc, krn);
+	}
+
+	// Replaces the resident page victim of prc by vpage (loaded in the frame of
+	// victim) - see PageReplacer.replace
+	public static void replacePage(int victim, int vpage, Process prc, Kernel krn) {
+		int frame = prc.pageTable.getFrame(victim);
+
+		prc.pageTable.setValid(victim, false); // Old page is replaced.
+		lruUnlink(victim, prc);
+		prc.pageTable.setFrame(vpage, frame); // load page into the frame and update table
+		prc.pageTable.setValid(vpage, true); // make the page valid
+		prc.pageTable.setCount(vpage, 0);
+		krn.mapFrame(frame, prc, vpage);
+		lruTouch(vpage, prc);
 	}
 
 	// --------------------------------------------------------------
@@ -77,35 +134,108 @@ public class KernelFunctions {
 	// is made (including after a page fault). It will allow you
 	// to update the page table entries for supporting various
 	// page replacement algorithms.
+	public static void doneMemAccess(int vpage, Process prc, double clock, Kernel krn) {
+		doneMemAccess(vpage, prc, clock);
+		if (krn.globalReplacement && prc.pageTable.isValid(vpage))
+			krn.touchFrame(prc.pageTable.getFrame(vpage)); // frame is most recently used
+	}
+
 	public static void doneMemAccess(int vpage, Process prc, double clock) {
 
-		if (prc.pageTable[vpage].valid) {
-			prc.pageTable[vpage].used = true;
-			prc.pageTable[vpage].tmStamp = clock;
-			//prc.pageTable[vpage].count=0;
+		if (prc.pageTable.isValid(vpage)) {
+			prc.pageTable.setUsed(vpage, true);
+			if (prc.write)
+				prc.pageTable.setDirty(vpage, true);
+			prc.pageTable.setStamp(vpage, (long) clock); // clock advances in whole time units
+			prc.pageTable.setCount(vpage, prc.pageTable.getCount(vpage) + 1); // for COUNT
+			lruTouch(vpage, prc); // move to most recently used end of the list
+			if (prc.replacer != null)
+				prc.replacer.pageAccessed(vpage, prc);
+		}
+		prc.refsSinceFault++;
+		prc.numRefs++;
+		if ((prc.prefetched != null) && prc.prefetched.get(vpage)) { // first reference to a page read ahead
+			prc.prefetched.clear(vpage);
+			prc.numPrefetchHits++;
 		}
+		if (prc.missRatio != null)
+			prc.missRatio.reference(vpage);
+		prc.framesUsedSum += prc.numFramesUsed;
+		if (prc.wsRefs != null)
+			wsReference(vpage, prc);
 	}
 
+	// ------------------------------------------------------------
+	// LRU recency list - a circular doubly linked list threaded through
+	// prc.lruPrev/prc.lruNext (indexed by virtual page). The header is at
+	// index prc.numPages; lruNext[header] is the least recently used page.
+	// ------------------------------------------------------------
+	// Moves vpage to the most recently used end of the list
+	public static void lruTouch(int vpage, Process prc) {
+		int hdr = prc.numPages;
+
+		if (prc.lruNext[vpage] != -1) // already in the list - unlink first
+			lruUnlink(vpage, prc);
+		prc.lruPrev[vpage] = prc.lruPrev[hdr];
+		prc.lruNext[vpage] = hdr;
+		prc.lruNext[prc.lruPrev[hdr]] = vpage;
+		prc.lruPrev[hdr] = vpage;
+	}
+
+	// Removes vpage from the list (page no longer resident)
+	public static void lruUnlink(int vpage, Process prc) {
+		if (prc.lruNext[vpage] == -1)
+			return; // not in the list
+		prc.lruNext[prc.lruPrev[vpage]] = prc.lruNext[vpage];
+		prc.lruPrev[prc.lruNext[vpage]] = prc.lruPrev[vpage];
+		prc.lruNext[vpage] = -1;
+		prc.lruPrev[vpage] = -1;
+	}
+
+	// The following methods return the page to be replaced (the victim) by
+	// each algorithm - see PageReplacer.victim. The page is then replaced
+	// (replacePage) or its frame released (releaseFrame) by the caller.
+
 	// FIFO page Replacement algorithm
-	public static void pageReplAlgorithmFIFO(int vpage, Process prc) {
+	public static int victimFIFO(Process prc, Kernel krn) {
 		int vPageReplaced; // Page to be replaced
-		int frame; // frame to receive new page
+		int frame; // frame of the page
 		// Find page to be replaced
 		// logProcessState(prc);
 		frame = prc.allocatedFrames[prc.framePtr]; // get next available frame
-		vPageReplaced = findvPage(prc.pageTable, frame); // find current page using it (i.e written to disk)
-		prc.pageTable[vPageReplaced].valid = false; // Old page is replaced.
-		prc.pageTable[vpage].frameNum = frame; // load page into the frame and update table
-		prc.pageTable[vpage].valid = true; // make the page valid
-		prc.framePtr = (prc.framePtr + 1) % prc.allocatedFrames.length; // point to next frame in list
+		vPageReplaced = findvPage(prc, frame, krn); // find current page using it (i.e written to disk)
+		prc.framePtr = (prc.framePtr + 1) % prc.numFramesUsed; // point to next frame in list
+		return (vPageReplaced);
 	}
 
-	// finds the virtual page loaded in the specified frame fr
-	public static int findvPage(PgTblEntry[] ptbl, int fr) {
+	// finds the virtual page loaded in the specified frame fr using the
+	// kernel's inverted frame table (constant time). When krn.checkFrameTable
+	// is set the result is compared against a scan of the page table.
+	public static int findvPage(Process prc, int fr, Kernel krn) {
+		int vp;
+
+		if (krn.frameOwner[fr] != prc)
+			vp = -1; // frame not held by this process
+		else
+			vp = krn.frameVPage[fr];
+		if (krn.checkFrameTable) {
+			int scan = findvPage(prc.pageTable, fr);
+			if (scan != vp)
+				System.out.println("Frame table inconsistent for frame " + fr + " (process " + prc.pid
+						+ "): frame table " + vp + " page table " + scan);
+			return (scan);
+		}
+		if (vp == -1)
+			System.out.println("Could not find frame number in frame table " + fr);
+		return (vp);
+	}
+
+	// finds the virtual page loaded in the specified frame fr by scanning the page table
+	public static int findvPage(PageTable ptbl, int fr) {
 		int i;
-		for (i = 0; i < ptbl.length; i++) {
-			if (ptbl[i].valid) {
-				if (ptbl[i].frameNum == fr) {
+		for (i = 0; i < ptbl.size(); i++) {
+			if (ptbl.isValid(i)) {
+				if (ptbl.getFrame(i) == fr) {
 					return (i);
 				}
 			}
@@ -114,76 +244,381 @@ public class KernelFunctions {
 		return (-1);
 	}
 
-	// CLOCK page Replacement algorithm
-	public static void pageReplAlgorithmCLOCK(int vpage, Process prc) {
+	// CLOCK page Replacement algorithm - the pointer is left on the frame of
+	// the victim (the page loaded there is examined first next time)
+	public static int victimCLOCK(Process prc, Kernel krn) {
 		int vPageReplaced; // Page to be replaced
-		int frame; // frame to receive new page
+		int frame; // frame of the page
 
 		while (true) {
 			frame = prc.allocatedFrames[prc.framePtr];
-			vPageReplaced = findvPage(prc.pageTable, frame);
-			if (prc.pageTable[vPageReplaced].used == true) {// if the page is referenced, give it a second change by
-															// flipping the bit
-				prc.pageTable[vPageReplaced].used = false;
-
-			} else {
-				prc.pageTable[vPageReplaced].valid = false; // Old page is replaced.
-				prc.pageTable[vpage].frameNum = frame; // load page into the frame and update table
-				prc.pageTable[vpage].valid = true;// make the page valid
-				break; // stop iteration if a page is replaced
+			vPageReplaced = findvPage(prc, frame, krn);
+			if (prc.pageTable.isUsed(vPageReplaced) == true) {// if the page is referenced, give it a second change by
+																// flipping the bit
+				prc.pageTable.setUsed(vPageReplaced, false);
+
+			} else
+				return (vPageReplaced); // stop iteration if a page is not referenced
+			prc.framePtr = (prc.framePtr + 1) % prc.numFramesUsed; // increment the circular list pointer
+		}
+	}
+
+	// Enhanced second chance CLOCK - the pages are classed by (used, dirty):
+	// (0,0) is replaced first, then (0,1), (1,0) and (1,1), so that clean pages
+	// are preferred (no write back). A first pass looks for (0,0) without
+	// changing the used bits, a second pass looks for (0,1) clearing the used
+	// bits; the two passes are repeated until a page is found.
+	public static int victimESCLOCK(Process prc, Kernel krn) {
+		int vPageReplaced = -1; // Page to be replaced
+		int vp;
+		int i;
+
+		while (vPageReplaced == -1) {
+			for (i = 0; (i < prc.numFramesUsed) && (vPageReplaced == -1); i++) { // (0,0)
+				vp = findvPage(prc, prc.allocatedFrames[prc.framePtr], krn);
+				if (!prc.pageTable.isUsed(vp) && !prc.pageTable.isDirty(vp))
+					vPageReplaced = vp;
+				else
+					prc.framePtr = (prc.framePtr + 1) % prc.numFramesUsed;
+			}
+			for (i = 0; (i < prc.numFramesUsed) && (vPageReplaced == -1); i++) { // (0,1)
+				vp = findvPage(prc, prc.allocatedFrames[prc.framePtr], krn);
+				if (!prc.pageTable.isUsed(vp))
+					vPageReplaced = vp;
+				else {
+					prc.pageTable.setUsed(vp, false);
+					prc.framePtr = (prc.framePtr + 1) % prc.numFramesUsed;
+				}
 			}
-			prc.framePtr = (prc.framePtr + 1) % prc.allocatedFrames.length; // increment the circular list pointer
 		}
+		prc.framePtr = (prc.framePtr + 1) % prc.numFramesUsed; // point to next frame in list
+		return (vPageReplaced);
 	}
 
 	// LRU page Replacement algorithm
-
-	public static void pageReplAlgorithmLRU(int vpage, Process prc) {
+	// The victim is the head of the recency list kept by doneMemAccess (O(1))
+	public static int victimLRU(Process prc, Kernel krn) {
+		return (prc.lruNext[prc.numPages]); // least recently used page
+	}
+
+	// LRU page Replacement algorithm - reference version scanning the
+	// time stamps of the whole page table (used to check pageReplAlgorithmLRU)
+	public static int victimLRUScan(Process prc, Kernel krn) {
 		int lruIndex = 0;
 
-		for (int i = 0; i < prc.pageTable.length; i++) {// find first valid index that has a time stamp to start
-			if (prc.pageTable[i].valid) {
+		for (int i = 0; i < prc.pageTable.size(); i++) {// find first valid index that has a time stamp to start
+			if (prc.pageTable.isValid(i)) {
 				lruIndex = i;
 				break; // stop iteration if an entry is valid
 			}
 		}
-		for (int j = 0; j < prc.pageTable.length; j++) {
-			if (prc.pageTable[j].valid && prc.pageTable[j].tmStamp < prc.pageTable[lruIndex].tmStamp) {// find the entry
+		for (int j = 0; j < prc.pageTable.size(); j++) {
+			if (prc.pageTable.isValid(j) && prc.pageTable.getStamp(j) < prc.pageTable.getStamp(lruIndex)) {// find the entry
 																										// with the
 																										// lowest time
 																										// stamp
 				lruIndex = j;
 			}
 		}
-		prc.pageTable[lruIndex].valid = false; // Old page is replaced.
-		prc.pageTable[vpage].frameNum = prc.pageTable[lruIndex].frameNum; // replace lru page with the new page
-		prc.pageTable[vpage].valid = true; // make the page valid
-
-
+		return (lruIndex);
 	}
 
-	public static void pageReplAlgorithmCOUNT(int vpage, Process prc) {
+	// COUNT page Replacement algorithm - the page referenced the fewest times
+	// since it was loaded (the first one from the pointer)
+	public static int victimCOUNT(Process prc, Kernel krn) {
 		int vPageReplaced; // Page to be replaced
-		int frame; // frame to receive new page
+		int frame; // frame of a page
 		int iter; // page table iterator
 		frame = prc.allocatedFrames[prc.framePtr];
-		vPageReplaced = findvPage(prc.pageTable, frame);
-		int i= (prc.framePtr+1)%prc.allocatedFrames.length;
+		vPageReplaced = findvPage(prc, frame, krn);
+		int i= (prc.framePtr+1)%prc.numFramesUsed;
 		while (i != prc.framePtr) {
 			frame = prc.allocatedFrames[i]; 
-			iter = findvPage(prc.pageTable, frame); // find current frame in page table
-			if (prc.pageTable[iter].count < prc.pageTable[vPageReplaced].count) {
+			iter = findvPage(prc, frame, krn); // find current frame in page table
+			if (prc.pageTable.getCount(iter) < prc.pageTable.getCount(vPageReplaced)) {
 				vPageReplaced = iter;
 			}
-			i=(i+1)%prc.allocatedFrames.length;
+			i=(i+1)%prc.numFramesUsed;
+		}
+		prc.framePtr = (prc.framePtr + 1) % prc.numFramesUsed;// point to next frame in list
+		return (vPageReplaced);
+	}
+
+	// ******************************************************************
+	// Methods for supporting allocation schemes
+	// ******************************************************************
+
+	// Sets the initial allocation of the processes for the kernel allocation policy
+	public static void allocateFrames(Process[] prcs, Kernel krn) {
+		int totalPages = 0;
+
+		for (Process prc : prcs)
+			totalPages += prc.numPages;
+		for (Process prc : prcs) {
+			switch (krn.allocationPolicy) {
+			case PROPORTIONAL: // share of the frames proportional to the process size
+				prc.numAllocatedFrames = Math.max(Kernel.MinFrames, krn.numFrames * prc.numPages / totalPages);
+				break;
+			case WSET: // working set window of the references of the process
+				prc.wsRefs = new int[krn.wsWindow];
+				prc.wsCount = new int[prc.numPages];
+				prc.wsRefIx = 0;
+				prc.wsSize = 0;
+				break;
+			default: // FIXED and PFF start with the fixed allocation (Process.allocateFrames)
+				break;
+			}
+			if (prc.allocatedFrames.length < prc.numAllocatedFrames)
+				prc.allocatedFrames = Arrays.copyOf(prc.allocatedFrames, prc.numAllocatedFrames);
+		}
+	}
+
+	// Records a reference in the working set window of the process -
+	// wsCount counts the references to each page in the window and
+	// wsSize is the number of pages referenced in the window
+	public static void wsReference(int vpage, Process prc) {
+		int old;
+
+		if (prc.numRefs > prc.wsRefs.length) { // window full - oldest reference leaves the window
+			old = prc.wsRefs[prc.wsRefIx];
+			prc.wsCount[old]--;
+			if (prc.wsCount[old] == 0)
+				prc.wsSize--;
+		}
+		prc.wsRefs[prc.wsRefIx] = vpage;
+		prc.wsRefIx = (prc.wsRefIx + 1) % prc.wsRefs.length;
+		if (prc.wsCount[vpage] == 0)
+			prc.wsSize++;
+		prc.wsCount[vpage]++;
+	}
+
+	// Called at each page fault of prc - dynamic policies set the number of
+	// frames allocated to the process, releasing frames when it goes down
+	public static void adjustAllocation(Process prc, Kernel krn) {
+		int target; // new number of allocated frames
+		double faultRate; // faults per reference since the last fault
+
+		switch (krn.allocationPolicy) {
+		case WSET: // working set size
+			target = prc.wsSize;
+			break;
+		case PFF: // one more frame above the upper threshold, one less below the lower threshold
+			faultRate = 1.0 / (prc.refsSinceFault + 1);
+			if (faultRate > krn.pffUpper)
+				target = prc.numAllocatedFrames + 1;
+			else if (faultRate < krn.pffLower)
+				target = prc.numAllocatedFrames - 1;
+			else
+				target = prc.numAllocatedFrames;
+			break;
+		default: // FIXED, PROPORTIONAL - allocation does not change
+			prc.refsSinceFault = 0;
+			return;
+		}
+		prc.refsSinceFault = 0;
+		target = Math.min(target, prc.numFramesUsed + krn.numFree); // cannot grow past the free frames
+		target = Math.max(target, Kernel.MinFrames);
+		prc.numAllocatedFrames = target;
+		while (prc.numFramesUsed > target)
+			releaseFrame(prc, krn);
+	}
+
+	// Takes a frame away from process prc - the page in the frame (the victim
+	// of the replacement strategy of prc) is replaced and the frame is returned
+	// to the kernel free list
+	public static void releaseFrame(Process prc, Kernel krn) {
+		int ix; // index of the frame in allocatedFrames
+		int frame;
+		int vp; // page in the frame
+
+		if (prc.numFramesUsed == 0)
+			return;
+		vp = replacer(prc, krn).victim(prc, krn);
+		frame = prc.pageTable.getFrame(vp);
+		for (ix = 0; prc.allocatedFrames[ix] != frame; ix++)
+			;
+		prc.pageTable.setValid(vp, false); // Old page is replaced.
+		lruUnlink(vp, prc);
+		removeAllocatedFrame(ix, prc);
+		krn.returnFrame2FreeList(frame);
+	}
+
+	// Takes a frame from the process holding the most frames (other than prc)
+	// and returns it to the free list - returns false if there is none
+	public static boolean stealFrame(Process prc, Kernel krn) {
+		Process owner = null;
+
+		for (int fr = 0; fr < krn.numFrames; fr++)
+			if ((krn.frameOwner[fr] != null) && (krn.frameOwner[fr] != prc)
+					&& ((owner == null) || (krn.frameOwner[fr].numFramesUsed > owner.numFramesUsed)))
+				owner = krn.frameOwner[fr];
+		if (owner == null)
+			return (false);
+		releaseFrame(owner, krn);
+		return (true);
+	}
+
+	// Takes all the frames of process prc (suspended by the load control) -
+	// its pages are replaced and the frames returned to the kernel free list
+	public static void swapOut(Process prc, Kernel krn) {
+		int frame;
+		int vp;
+
+		while (prc.numFramesUsed > 0) {
+			frame = prc.allocatedFrames[prc.numFramesUsed - 1];
+			vp = findvPage(prc, frame, krn);
+			prc.pageTable.setValid(vp, false); // Old page is replaced.
+			lruUnlink(vp, prc);
+			if (prc.replacer != null)
+				prc.replacer.pageEvicted(vp, prc);
+			removeAllocatedFrame(prc.numFramesUsed - 1, prc);
+			krn.returnFrame2FreeList(frame);
+		}
+	}
+
+	// ******************************************************************
+	// Methods for supporting global replacement - the victim is chosen
+	// among the frames of all processes using the kernel frame table
+	// ******************************************************************
+	public static void globalPageReplacement(int vpage, Process prc, Kernel krn) {
+		int frame; // frame to receive new page
+		Process owner; // process losing the frame
+		int vPageReplaced; // Page to be replaced
+		int ix;
+
+		if (krn.numFree > 0) { // free frames are used first
+			addPageFrame(vpage, prc, krn);
+			krn.touchFrame(prc.pageTable.getFrame(vpage));
+			globalAllocation(prc, krn);
+			return;
+		}
+		frame = krn.pagingAlgorithm.globalVictim.applyAsInt(krn);
+		owner = krn.frameOwner[frame];
+		vPageReplaced = krn.frameVPage[frame];
+		owner.pageTable.setValid(vPageReplaced, false); // Old page is replaced.
+		lruUnlink(vPageReplaced, owner);
+		if (owner.replacer != null)
+			owner.replacer.pageEvicted(vPageReplaced, owner);
+		for (ix = 0; owner.allocatedFrames[ix] != frame; ix++)
+			;
+		removeAllocatedFrame(ix, owner);
+		// load page into the frame and update table
+		prc.pageTable.setFrame(vpage, frame);
+		prc.pageTable.setValid(vpage, true);
+		prc.pageTable.setCount(vpage, 0);
+		krn.mapFrame(frame, prc, vpage);
+		lruTouch(vpage, prc);
+		krn.touchFrame(frame);
+		appendAllocatedFrame(frame, prc);
+		globalAllocation(owner, krn);
+		globalAllocation(prc, krn);
+	}
+
+	// Sets the allocation of prc with global replacement - the frames it holds
+	// and the free frames, all of which its faults can take (its allocation is
+	// full exactly when no frame is free). The allocation policies do not apply.
+	public static void globalAllocation(Process prc, Kernel krn) {
+		prc.numAllocatedFrames = prc.numFramesUsed + krn.numFree;
+	}
+
+	// The following methods return the frame to be replaced by the global
+	// variant of each algorithm (PagingAlgorithm.globalVictim) - ARC, CLOCKPRO,
+	// TWOQ and OPT keep their lists per process and have none.
+
+	// Global FIFO - frames are replaced in turn
+	public static int globalVictimFIFO(Kernel krn) {
+		int frame = krn.frameHand;
+
+		krn.frameHand = (krn.frameHand + 1) % krn.numFrames;
+		return (frame);
+	}
+
+	// Global LRU (and LRUSCAN) - head of the frame recency list
+	public static int globalVictimLRU(Kernel krn) {
+		return (krn.lruFrame());
+	}
+
+	// Global CLOCK - second chance using the used bits of the owners' page tables
+	public static int globalVictimCLOCK(Kernel krn) {
+		int frame;
+		Process owner;
+
+		while (true) {
+			frame = krn.frameHand;
+			krn.frameHand = (krn.frameHand + 1) % krn.numFrames;
+			owner = krn.frameOwner[frame];
+			if (!owner.pageTable.isUsed(krn.frameVPage[frame]))
+				return (frame);
+			owner.pageTable.setUsed(krn.frameVPage[frame], false);
+		}
+	}
+
+	// Global ESCLOCK - enhanced second chance, (0,0) then (0,1) clearing the used bits
+	public static int globalVictimESCLOCK(Kernel krn) {
+		int frame;
+		int i;
+		Process owner;
+
+		while (true) {
+			for (i = 0; i < krn.numFrames; i++) {
+				frame = (krn.frameHand + i) % krn.numFrames;
+				owner = krn.frameOwner[frame];
+				if (!owner.pageTable.isUsed(krn.frameVPage[frame]) && !owner.pageTable.isDirty(krn.frameVPage[frame])) {
+					krn.frameHand = (frame + 1) % krn.numFrames;
+					return (frame);
+				}
+			}
+			for (i = 0; i < krn.numFrames; i++) {
+				frame = krn.frameHand;
+				krn.frameHand = (krn.frameHand + 1) % krn.numFrames;
+				owner = krn.frameOwner[frame];
+				if (!owner.pageTable.isUsed(krn.frameVPage[frame]))
+					return (frame);
+				owner.pageTable.setUsed(krn.frameVPage[frame], false);
+			}
 		}
-		prc.pageTable[vPageReplaced].valid = false; // Old page is replaced.
-		prc.pageTable[vPageReplaced].count = 0;
-		prc.pageTable[vpage].frameNum = prc.pageTable[vPageReplaced].frameNum; // load page into the frame and update table
-		prc.pageTable[vpage].valid = true; // make the page valid
-		prc.pageTable[vpage].count = 0;
-		prc.framePtr = (prc.framePtr + 1) % prc.allocatedFrames.length;// point to next frame in list
+	}
+
+	// Global COUNT - smallest count, starting at the hand
+	public static int globalVictimCOUNT(Kernel krn) {
+		int frame = krn.frameHand;
 
+		for (int i = 1; i < krn.numFrames; i++) {
+			int fr = (krn.frameHand + i) % krn.numFrames;
+			if (krn.frameOwner[fr].pageTable.getCount(krn.frameVPage[fr]) < krn.frameOwner[frame].pageTable
+					.getCount(krn.frameVPage[frame]))
+				frame = fr;
+		}
+		krn.frameHand = (krn.frameHand + 1) % krn.numFrames;
+		return (frame);
+	}
+
+	// ******************************************************************
+	// Page cleaner - writes back dirty pages in the background
+	// ******************************************************************
+
+	// Writes back up to max dirty pages not referenced since time "since",
+	// examining the frames from the cleaner hand. Returns the number of pages written.
+	public static int cleanPages(Kernel krn, int max, double since) {
+		int n = 0;
+		int fr;
+		int vp;
+		Process owner;
+
+		for (int i = 0; (i < krn.numFrames) && (n < max); i++) {
+			fr = krn.cleanerHand;
+			krn.cleanerHand = (krn.cleanerHand + 1) % krn.numFrames;
+			owner = krn.frameOwner[fr];
+			if (owner == null)
+				continue; // free frame
+			vp = krn.frameVPage[fr];
+			if (owner.pageTable.isDirty(vp) && (owner.pageTable.getStamp(vp) < since)) {
+				owner.pageTable.setDirty(vp, false);
+				krn.numCleaned++;
+				n++;
+			}
+		}
+		return (n);
 	}
 
 	// *******************************************
@@ -204,19 +639,19 @@ public class KernelFunctions {
 		System.out.println("Simulation data: numAccesses left in cycle: " + prc.numMemAccess
 				+ " Num to next change in working set: " + prc.numMA2ChangeWS);
 		System.out.println("Working set is :");
-		for (i = 0; i < prc.workingSet.length; i++) {
+		for (i = 0; i <= prc.wsSegments[3]; i++) {
 			System.out.print(" " + prc.workingSet[i]);
 		}
 		System.out.println();
 		// page Table
 		System.out.println("Page Table");
 		if (prc.pageTable != null) {
-			for (i = 0; i < prc.pageTable.length; i++) {
-				if (prc.pageTable[i].valid) // its valid printout the data
+			for (i = 0; i < prc.pageTable.size(); i++) {
+				if (prc.pageTable.isValid(i)) // its valid printout the data
 				{
-					System.out.println("   Page " + i + "(valid): " + " Frame " + prc.pageTable[i].frameNum + " Used "
-							+ prc.pageTable[i].used + " Time Stamp " + prc.pageTable[i].tmStamp + " Count "
-							+ prc.pageTable[i].count);
+					System.out.println("   Page " + i + "(valid): " + " Frame " + prc.pageTable.getFrame(i) + " Used "
+							+ prc.pageTable.isUsed(i) + " Time Stamp " + prc.pageTable.getStamp(i) + " Count "
+							+ prc.pageTable.getCount(i));
 				} else
 					System.out.println("   Page " + i + " is invalid (i.e not loaded)");
 			}
@@ -225,7 +660,7 @@ public class KernelFunctions {
 		System.out.println("Allocated frames (max is " + prc.numAllocatedFrames + ")" + " (frame pointer is "
 				+ prc.framePtr + ")");
 		if (prc.allocatedFrames != null) {
-			for (i = 0; i < prc.allocatedFrames.length; i++)
+			for (i = 0; i < prc.numFramesUsed; i++)
 				System.out.print(" " + prc.allocatedFrames[i]);
 		}
 		System.out.println();
@@ -233,11 +668,92 @@ public class KernelFunctions {
 	}
 }
 
-// Page Table Entries
-class PgTblEntry {
-	int frameNum; // Frame number
-	boolean valid; // Valid Bit
-	boolean used; // Used Bit
-	double tmStamp; // Time Stamp
-	int count;
+// Linear page table - packed as parallel arrays indexed by virtual page number
+// (one array per page table entry field) rather than an array of entry objects.
+// All entries are allocated - see RadixPageTable and HashedPageTable for
+// large sparse address spaces.
+class LinearPageTable implements PageTable {
+	private static final long serialVersionUID = 1L;
+	private int numPages; // Number of entries
+	private int[] frameNum; // Frame numbers
+	private BitSet valid; // Valid Bits
+	private BitSet used; // Used Bits
+	private BitSet dirty; // Dirty Bits - page written since it was loaded
+	private long[] tmStamp; // Time Stamps
+	private int[] count; // Counts
+
+	public LinearPageTable(int numPages) { // All entries invalid
+		this.numPages = numPages;
+		frameNum = new int[numPages];
+		valid = new BitSet(numPages);
+		used = new BitSet(numPages);
+		dirty = new BitSet(numPages);
+		tmStamp = new long[numPages];
+		count = new int[numPages];
+	}
+
+	public int size() {
+		return (numPages);
+	}
+
+	public int getFrame(int vpage) {
+		return (frameNum[vpage]);
+	}
+
+	public void setFrame(int vpage, int fr) {
+		frameNum[vpage] = fr;
+	}
+
+	public boolean isValid(int vpage) {
+		return (valid.get(vpage));
+	}
+
+	public void setValid(int vpage, boolean b) {
+		valid.set(vpage, b);
+	}
+
+	public boolean isUsed(int vpage) {
+		return (used.get(vpage));
+	}
+
+	public void setUsed(int vpage, boolean b) {
+		used.set(vpage, b);
+	}
+
+	public boolean isDirty(int vpage) {
+		return (dirty.get(vpage));
+	}
+
+	public void setDirty(int vpage, boolean b) {
+		dirty.set(vpage, b);
+	}
+
+	public long getStamp(int vpage) {
+		return (tmStamp[vpage]);
+	}
+
+	public void setStamp(int vpage, long stamp) {
+		tmStamp[vpage] = stamp;
+	}
+
+	public int getCount(int vpage) {
+		return (count[vpage]);
+	}
+
+	public void setCount(int vpage, int cnt) {
+		count[vpage] = cnt;
+	}
+
+	public int walkCost(int vpage) {
+		return (1); // one entry read
+	}
+
+	public long footprint() {
+		return (bytes(numPages));
+	}
+
+	// Bytes of a linear page table of numPages entries
+	static long bytes(long numPages) {
+		return (numPages * (4 + 8 + 4) + 3 * ((numPages + 7) / 8));
+	}
 }
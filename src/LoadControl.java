@@ -0,0 +1,134 @@
+// File: LoadControl.java
+// Description:
+//    Load control - detects thrashing and decides when to suspend (swap out)
+//    and resume processes. Every period, the model gives the totals of the
+//    faults, references and CPU idle time; over a sliding window of the last
+//    windowPeriods periods the fault rate (faults per reference) and the idle
+//    fraction of the CPUs are computed:
+//       - thrashing (fault rate above faultHigh and idle fraction above
+//         idleHigh - the CPUs wait for faults) - suspend a process
+//       - fault rate below faultLow - the memory has room, resume a process
+//    After a decision, no other is taken until the window holds only
+//    periods that followed it. A process suspended for maxSuspendPeriods is
+//    resumed whatever the load (so that no process is starved - if the
+//    system still thrashes, another process will be suspended).
+//    The model (MemManage) suspends and resumes the processes.
+
+// Import packages
+import java.util.*;
+
+class LoadControl implements java.io.Serializable {
+	private static final long serialVersionUID = 1L;
+	static final int None = 0, Suspend = 1, Resume = -1; // decisions
+	// Parameters
+	double period; // time between samples
+	int windowPeriods; // periods in the window
+	double faultHigh; // fault rate above which the system may be thrashing
+	double faultLow; // fault rate below which a process is resumed
+	double idleHigh; // idle fraction above which the system may be thrashing
+	int minActive; // processes never suspended below this number of active processes
+	int maxSuspendPeriods; // periods after which a suspended process is resumed (0 - never)
+	// Window - samples of the last windowPeriods periods (ring buffers)
+	long[] faults;
+	long[] refs;
+	double[] idle;
+	int ix; // next sample
+	int numSamples; // samples since the last decision
+	long lastFaults; // totals at the last sample
+	long lastRefs;
+	double lastIdle;
+	// State
+	ArrayDeque<Process> suspended; // suspended processes - the first suspended first
+	ArrayDeque<Double> suspendTime; // time each was suspended
+	// Output
+	long numSuspends;
+	long numResumes;
+	double suspendedSum; // sum over the periods of the number of suspended processes (times period)
+	double faultRate; // fault rate over the window at the last sample
+	double idleFraction; // idle fraction over the window at the last sample
+
+	public LoadControl(double period, int windowPeriods, double faultHigh, double faultLow, double idleHigh,
+			int minActive, int maxSuspendPeriods) {
+		this.period = period;
+		this.windowPeriods = windowPeriods;
+		this.faultHigh = faultHigh;
+		this.faultLow = faultLow;
+		this.idleHigh = idleHigh;
+		this.minActive = minActive;
+		this.maxSuspendPeriods = maxSuspendPeriods;
+		faults = new long[windowPeriods];
+		refs = new long[windowPeriods];
+		idle = new double[windowPeriods];
+		suspended = new ArrayDeque<Process>();
+		suspendTime = new ArrayDeque<Double>();
+	}
+
+	// Defaults - window of 5 periods of 1000 time units (about 50 faults),
+	// thrashing above 50 faults per 1000 references with the CPUs idle half
+	// of the time, resume below 20 faults per 1000 references
+	public LoadControl() {
+		this(1000, 5, 0.05, 0.02, 0.5, 1, 100);
+	}
+
+	// Adds the sample of the period ending at time clock - totals of the
+	// faults, references and CPU idle time (over numCpus CPUs) - and returns
+	// the decision: Suspend, Resume or None
+	public int sample(long totalFaults, long totalRefs, double totalIdle, int numCpus, int numActive,
+			double clock) {
+		long f = 0, r = 0;
+		double id = 0;
+
+		faults[ix] = totalFaults - lastFaults;
+		refs[ix] = totalRefs - lastRefs;
+		idle[ix] = totalIdle - lastIdle;
+		lastFaults = totalFaults;
+		lastRefs = totalRefs;
+		lastIdle = totalIdle;
+		ix = (ix + 1) % windowPeriods;
+		numSamples++;
+		suspendedSum += suspended.size() * period;
+		for (int i = 0; i < windowPeriods; i++) {
+			f += faults[i];
+			r += refs[i];
+			id += idle[i];
+		}
+		faultRate = (double) f / Math.max(1, r);
+		idleFraction = id / (numCpus * period * windowPeriods);
+		if ((maxSuspendPeriods > 0) && !suspended.isEmpty()
+				&& (clock - suspendTime.peek() >= maxSuspendPeriods * period))
+			return (Resume); // suspended for too long
+		if (numSamples < windowPeriods)
+			return (None); // window holds periods before the last decision
+		if ((faultRate > faultHigh) && (idleFraction > idleHigh) && (numActive > minActive))
+			return (Suspend);
+		if ((faultRate < faultLow) && !suspended.isEmpty())
+			return (Resume);
+		return (None);
+	}
+
+	// The totals given to sample restart from 0 after faults, refs and idle
+	// (see MemManage.fork) - the current period keeps its counts
+	public void restart(long faults, long refs, double idle) {
+		lastFaults -= faults;
+		lastRefs -= refs;
+		lastIdle -= idle;
+	}
+
+	// Records that prc was suspended at time clock
+	public void suspended(Process prc, double clock) {
+		suspended.add(prc);
+		suspendTime.add(clock);
+		numSuspends++;
+		numSamples = 0;
+	}
+
+	// Returns the process to resume (the first suspended) - null if none
+	public Process resume() {
+		if (suspended.isEmpty())
+			return (null);
+		suspendTime.poll();
+		numResumes++;
+		numSamples = 0;
+		return (suspended.poll());
+	}
+}
@@ -0,0 +1,60 @@
+// File: LoadExp.java
+// Description:
+//    Thrashing and load control - runs the simulation with 4 to 16
+//    processes (see MemManage.addProcesses) sharing the frames by global
+//    replacement, their faults queued on one paging device, without and with
+//    the load control (see LoadControl). Reports the throughput (and its gain
+//    with load control), the fault rate, the CPU idle fraction and the
+//    processes suspended. The algorithm must have a global variant (see
+//    MemManage.setGlobalReplacement).
+//    Usage: LoadExp [pagingAlgorithm] [endTime] [replication]
+
+// Import packages
+import java.lang.*;
+import java.util.*;
+
+// Main Method: Experiments
+//
+class LoadExp {
+	public static void main(String[] args) {
+		double startTime = 0.0, endTime = 5000000; // 5 seconds
+		PagingAlgorithm alg = PagingAlgorithm.CLOCK;
+		int rep = 0;
+		MemManage mmng;
+		double base = 0; // throughput without load control
+
+		if (args.length > 0)
+			alg = PagingAlgorithm.valueOf(args[0]);
+		if (args.length > 1)
+			endTime = Double.parseDouble(args[1]);
+		if (args.length > 2)
+			rep = Integer.parseInt(args[2]);
+
+		for (int n : new int[] { 4, 6, 8, 12, 16 })
+			for (boolean control : new boolean[] { false, true }) {
+				System.out.println("Running simulation using global " + alg + " with " + n + " processes"
+						+ (control ? " and load control" : ""));
+				mmng = new MemManage(alg, startTime, endTime, ReplicationExp.repSeeds(rep));
+				mmng.addProcesses(n - 4, ReplicationExp.repSeeds(rep));
+				mmng.setGlobalReplacement(true);
+				mmng.setBackingStore(new BackingStore(10, 80, 10, 1, true, 0));
+				if (control)
+					mmng.setLoadControl(new LoadControl());
+				mmng.runSimulation();
+				mmng.computeOutput();
+				double throughput = mmng.numMemAccesses / ((mmng.timef - mmng.time0) / 1000000);
+				if (!control)
+					base = throughput;
+				System.out.println(String.format("Memory accesses per simulated second: %d (gain %.2f)",
+						(long) throughput, throughput / base));
+				System.out.println(String.format("Number of faults per 1000 references: %d, CPU idle %.3f",
+						mmng.numPer1000, mmng.kernel.cpus[0].idleTime(mmng.clock) / (mmng.clock - mmng.time0)));
+				if (control)
+					System.out.println(String.format(
+							"Load control: %d suspends, %d resumes, %.2f processes suspended on average",
+							mmng.loadControl.numSuspends, mmng.loadControl.numResumes,
+							mmng.loadControl.suspendedSum / (mmng.clock - mmng.time0)));
+				System.out.println();
+			}
+	}
+}
@@ -9,6 +9,8 @@ import java.lang.*;
 import java.util.*;
 import java.util.concurrent.*;
 import java.io.*;
+import java.lang.management.*;
+import java.util.concurrent.atomic.*;
 import javax.management.*;
 import cern.jet.random.engine.*;
 import cern.jet.random.*;
@@ -20,9 +22,36 @@ enum Kaction {
 	ACCESSING, MEMACCESS, PAGEFAULT, IDLE
 }; // Addressing actions possible by kernel
 
+enum FreeListOrder {
+	FIFO, LIFO
+}; // Order free frames are handed out: FIFO (ring buffer) or LIFO (stack)
+
+enum AllocationPolicy {
+	FIXED, PROPORTIONAL, WSET, PFF
+}; // Frame allocation: fixed, proportional to process size, working set, page fault frequency
+
 enum PagingAlgorithm {
-	FIFO, LRU, CLOCK, COUNT
-}; // For definining paging algorithm used.
+	FIFO(prc -> KernelFunctions::victimFIFO, KernelFunctions::globalVictimFIFO),
+	LRU(prc -> KernelFunctions::victimLRU, KernelFunctions::globalVictimLRU),
+	CLOCK(prc -> KernelFunctions::victimCLOCK, KernelFunctions::globalVictimCLOCK),
+	COUNT(prc -> KernelFunctions::victimCOUNT, KernelFunctions::globalVictimCOUNT),
+	LRUSCAN(prc -> KernelFunctions::victimLRUScan, KernelFunctions::globalVictimLRU),
+	ARC(ArcReplacer::new, null),
+	CLOCKPRO(ClockProReplacer::new, null),
+	TWOQ(TwoQReplacer::new, null),
+	ESCLOCK(prc -> KernelFunctions::victimESCLOCK, KernelFunctions::globalVictimESCLOCK),
+	OPT(prc -> KernelFunctions::victimFIFO, null); // needs the future references - set up by MemManage
+
+	final java.util.function.Function<Process, PageReplacer> replacer; // creates the strategy of a process
+	final java.util.function.ToIntFunction<Kernel> globalVictim; // frame replaced with global replacement
+																	// (null - local replacement only)
+
+	PagingAlgorithm(java.util.function.Function<Process, PageReplacer> replacer,
+			java.util.function.ToIntFunction<Kernel> globalVictim) {
+		this.replacer = replacer;
+		this.globalVictim = globalVictim;
+	}
+}; // For definining paging algorithm used (LRUSCAN is the page table scan version of LRU).
 
 // The Simulation model Class
 class MemManage extends EvSched // Event Scheduling Simulation program
@@ -30,23 +59,41 @@ class MemManage extends EvSched // Event Scheduling Simulation program
 	// Constants (time units is microseconds
 	final double FaultTime = 100; // Time for faults 100 time units
 	final double MemTime = 1; // Time for acessing memory 1 time unit
+	final double WriteBackTime = 100; // Time for writing back a dirty page replaced (without backing store)
 	final int NumFrames = 32; // number of physical frames
 	final int MeanMemAccesses = 20; // mean number of memory accesses per process execution cycle
 	/* Parameter */
 	// Paging algorithm set in the Kernel Class
 
 	/* Data Modules for implementing timing maps */
-	Poisson memoryAccesses; // for defining number of memory accesses by a process
+	PoissonBlock memoryAccesses; // for defining number of memory accesses by a process
+	TraceReader trace; // when not null, page references are replayed from this trace
+	TraceRecorder recorder; // when not null, page references are recorded to a trace file
+	boolean fastMemAccess; // when true, memory accesses that complete before the next event are
+							// handled without scheduling EndMemoryAccess events
 
 	/* Resource Entity - the kernel */
 	Kernel kernel;
+	BackingStore backingStore; // paging device (null - see setBackingStore)
+	double cleanerPeriod; // time between runs of the page cleaner (0 - no cleaner)
+	int cleanerBatch; // maximum number of pages written back by a run of the cleaner
+	LoadControl loadControl; // suspends processes when the system thrashes (null - none)
+	RunLengthControl runLength; // ends the run when the fault rate is precise enough (null - at tftime)
+	PageTableType pageTableType; // organisation of the page tables (see setPageTable)
+	long numWalks; // page table walks (translations not found in the TLB)
+	long walkRefs; // page table entries read by the walks
+	MemManageMetrics metrics; // live counters exported by JMX (null - see registerMetrics)
+	ObjectName metricsName; // name of the registered MBean
+	static AtomicInteger numRegistered = new AtomicInteger(); // MBeans registered (names them)
 
 	/* Aggregate Entities */
+	Process[] processes; // all processes
 	ConcurrentLinkedQueue<Process> readyQueue; // process ready queue
 	HashSet<Process> ioQueue; // IO queue implemented as a set (to make code clearer)
 
 	/* Output Sets */
-	ESOutputSet phiTimeBtwFaults; // Sample Set
+	StreamOutputSet phiStats; // Time between faults - statistics computed as faults occur
+	ESOutputSet phiTimeBtwFaults; // Sample Set - all times between faults (null unless retained)
 	int numMemAccesses; // Number of memory accesses with no page faults
 	long numPer1000;
 
@@ -54,32 +101,68 @@ class MemManage extends EvSched // Event Scheduling Simulation program
 	// Model Behaviour
 	// Constructor - Also nitialises the model
 	public MemManage(PagingAlgorithm pgAlg, double t0time, double tftime, Seeds sd) {
+		this(pgAlg, t0time, tftime, sd, null);
+	}
+
+	// phiFileName - when not null, all times between faults are also kept in the
+	// phiTimeBtwFaults output set backed by this file (runs executing at the
+	// same time must each use a different file)
+	public MemManage(PagingAlgorithm pgAlg, double t0time, double tftime, Seeds sd, String phiFileName) {
+		this(pgAlg, t0time, tftime, sd, phiFileName, null, null);
+	}
+
+	// trace - replay page references from a trace file (processes are taken from the trace)
+	// rec - record the page references of the run (can be null)
+	public MemManage(PagingAlgorithm pgAlg, double t0time, double tftime, Seeds sd, String phiFileName,
+			TraceReader trace, TraceRecorder rec) {
+		Process[] prcs;
 		Process prc;
 		int pid = 100;
+		int i;
 
 		// Set up distribution functions
-		memoryAccesses = new Poisson(MeanMemAccesses, new MersenneTwister(sd.mAcc));
+		memoryAccesses = new PoissonBlock(new Poisson(MeanMemAccesses, new MersenneTwister(sd.mAcc)));
+		this.trace = trace;
+		recorder = rec;
 
 		// System Initialization
 		readyQueue = new ConcurrentLinkedQueue<Process>();
 		ioQueue = new HashSet<Process>();
 		// Lets do processes
-		prc = new Process(pid++, 10, 8, 6, 6, 250, sd.prc1, sd.maprc1, sd.bernprc1); // 30 pages
+		if (trace != null)
+			prcs = trace.createProcesses(sd);
+		else {
+			prcs = new Process[4];
+			prcs[0] = new Process(pid++, 10, 8, 6, 6, 250, sd.prc1, sd.maprc1, sd.bernprc1, sd.exactRandom); // 30 pages
+			prcs[1] = new Process(pid++, 10, 6, 4, 4, 150, sd.prc2, sd.maprc2, sd.bernprc2, sd.exactRandom); // 24 pages
+			prcs[2] = new Process(pid++, 18, 8, 6, 4, 100, sd.prc3, sd.maprc3, sd.bernprc3, sd.exactRandom); // 36 pages
+			prcs[3] = new Process(pid++, 12, 8, 6, 6, 300, sd.prc4, sd.maprc4, sd.bernprc4, sd.exactRandom); // 32 pages
+		}
+		processes = prcs;
+		if (recorder != null)
+			recorder.open(prcs);
+		prc = prcs[0];
 		kernel = new Kernel(NumFrames, pgAlg);
-		kernel.processExecuting = prc; // Set up first process as executing
+		if (pgAlg == PagingAlgorithm.OPT) { // replacement from the future references in the trace
+			if (trace == null)
+				System.out.println("OPT replacement needs a trace to replay - replacing pages in FIFO order");
+			else
+				kernel.replacerFactory = p -> new OptReplacer(p, trace.pageSequence(p.pid));
+		}
+		kernel.cpus[0].processExecuting = prc; // Set up first process as executing
 		prc.numMemAccess = memoryAccesses.nextInt();
-		kernel.processExecuting.vpage = selectAddress(prc);
-		kernel.action = Kaction.PAGEFAULT;
+		prc.vpage = selectAddress(prc);
+		kernel.cpus[0].action = Kaction.PAGEFAULT;
 		// Other processes added to ready queue
-		prc = new Process(pid++, 10, 6, 4, 4, 150, sd.prc2, sd.maprc2, sd.bernprc2); // 24 pages
-		readyQueue.add(prc);
-		prc = new Process(pid++, 18, 8, 6, 4, 100, sd.prc3, sd.maprc3, sd.bernprc3); // 36 pages
-		readyQueue.add(prc);
-		prc = new Process(pid++, 12, 8, 6, 6, 300, sd.prc4, sd.maprc4, sd.bernprc4); // 32 pages
-		readyQueue.add(prc);
+		for (i = 1; i < prcs.length; i++)
+			readyQueue.add(prcs[i]);
+		if (prc.vpage == -1) // no references in the trace - the next process executes
+			dispatch(kernel.cpus[0]);
 
 		// Setup sample set
-		phiTimeBtwFaults = new ESOutputSet("phiTimeBtwFaults");
+		phiStats = new StreamOutputSet("phiTimeBtwFaults");
+		if (phiFileName != null)
+			phiTimeBtwFaults = new ESOutputSet(phiFileName);
 		numMemAccesses = 0;
 
 		// Initialize the simulation model
@@ -88,10 +171,137 @@ class MemManage extends EvSched // Event Scheduling Simulation program
 		preConditions(); // check preconditions to schedule event (first page fault)
 	}
 
+	// Restores the model from checkpoint cp (see checkpoint, fork) - pgAlg
+	// replaces the pages from the checkpointed time to tftime
+	private MemManage(Checkpoint cp, PagingAlgorithm pgAlg, double tftime) {
+		PageReplacer repl;
+
+		memoryAccesses = cp.memoryAccesses;
+		readyQueue = cp.readyQueue;
+		ioQueue = cp.ioQueue;
+		processes = cp.processes;
+		kernel = cp.kernel;
+		backingStore = cp.backingStore;
+		cleanerPeriod = cp.cleanerPeriod;
+		cleanerBatch = cp.cleanerBatch;
+		loadControl = cp.loadControl;
+		pageTableType = cp.pageTableType;
+		kernel.pagingAlgorithm = pgAlg;
+		kernel.replacerFactory = pgAlg.replacer;
+		if (pgAlg == PagingAlgorithm.OPT)
+			System.out.println("OPT replacement needs a trace to replay - replacing pages in FIFO order");
+		if (kernel.globalReplacement && (pgAlg.globalVictim == null)) { // see setGlobalReplacement
+			System.out.println("No global variant of " + pgAlg + " - the fork replaces locally");
+			kernel.globalReplacement = false;
+			for (Process prc : processes) // each process keeps the frames it holds
+				prc.numAllocatedFrames = Math.max(prc.numFramesUsed, Kernel.MinFrames);
+		}
+		// Replacers (not checkpointed) rebuilt from the resident pages, in the order of their frames
+		for (Process prc : processes)
+			if (prc.numFramesUsed > 0) {
+				repl = KernelFunctions.replacer(prc, kernel);
+				for (int i = 0; i < prc.numFramesUsed; i++)
+					repl.pageLoaded(kernel.frameVPage[prc.allocatedFrames[i]], prc);
+			}
+		phiStats = new StreamOutputSet("phiTimeBtwFaults");
+		numMemAccesses = 0;
+
+		// Initialize the simulation model - the run starts at the checkpointed time
+		initEvSched(cp.clock, tftime);
+		if (loadControl != null) {
+			double idle = 0;
+			for (Cpu cpu : kernel.cpus)
+				idle += cpu.idleTime(clock);
+			loadControl.restart(cp.numFaults, cp.numFaults + cp.numMemAccesses, idle);
+		}
+		clearOutput();
+		for (int i = 0; i < cp.eventNames.length; i++) // pending events, in their order
+			addEventNotice(cp.eventNames[i], cp.eventTimes[i], cp.eventObjs[i]);
+	}
+
+	// Writes the state of the model at the current time to fileName (see
+	// Checkpoint) - e.g. after running a warm-up period
+	public void checkpoint(String fileName) {
+		if ((trace != null) || (recorder != null)) {
+			System.out.println("A run replaying or recording a trace cannot be checkpointed");
+			return;
+		}
+		try {
+			new Checkpoint(this).write(fileName);
+		} catch (IOException e) {
+			System.out.println("Checkpoint not written: " + e);
+		}
+	}
+
+	// Returns a new run restored from the checkpoint in fileName, replacing the
+	// pages with pgAlg up to time tftime (null if the checkpoint cannot be read).
+	// The outputs count from the checkpointed time; each fork continues with
+	// the random number streams of the checkpoint (common random numbers).
+	public static MemManage fork(String fileName, PagingAlgorithm pgAlg, double tftime) {
+		try {
+			return (new MemManage(Checkpoint.read(fileName), pgAlg, tftime));
+		} catch (IOException | ClassNotFoundException e) {
+			System.out.println("Checkpoint not read: " + e);
+			return (null);
+		}
+	}
+
+	// Clears the outputs of the model, the CPUs, the TLBs, the device and the
+	// load control (the outputs of the processes are kept)
+	private void clearOutput() {
+		numWalks = 0;
+		walkRefs = 0;
+		kernel.numWriteBacks = 0;
+		kernel.numCleaned = 0;
+		for (Cpu cpu : kernel.cpus) {
+			cpu.numMemAccesses = 0;
+			cpu.numFaults = 0;
+			cpu.numStalls = 0;
+			cpu.idleTime = 0;
+			cpu.idleSince = clock;
+			if (cpu.tlb != null) {
+				cpu.tlb.hits = 0;
+				cpu.tlb.misses = 0;
+				cpu.tlb.contextSwitches = 0;
+				cpu.tlb.flushes = 0;
+				cpu.tlb.invalidations = 0;
+			}
+		}
+		if (backingStore != null) {
+			backingStore.numRequests = 0;
+			backingStore.numServed = 0;
+			backingStore.numWriteRequests = 0;
+			backingStore.numPagesWritten = 0;
+			backingStore.numIOs = 0;
+			backingStore.numRuns = 0;
+			backingStore.numPagesTransferred = 0;
+			backingStore.busyTime = 0;
+			backingStore.waitSum = 0;
+		}
+		if (loadControl != null) {
+			loadControl.numSuspends = 0;
+			loadControl.numResumes = 0;
+			loadControl.suspendedSum = 0;
+		}
+	}
+
 	// Future Events
 	// Future Event Names (used in FEL)
 	final int EndPageFault = 1; // End of page fault
 	final int EndMemoryAccess = 2; // End of memory access
+	final int EndDeviceIO = 3; // End of an I/O operation of the backing store
+	final int EndWriteBack = 4; // End of the write back of the dirty pages replaced by a fault
+	final int CleanerWakeup = 5; // Run of the page cleaner
+	final int LoadControlSample = 6; // Sample of the load control
+
+	long eventSeq = 0; // number of event notices created - orders events scheduled for the same time
+
+	// Events scheduled for the same time are processed in the order they were
+	// scheduled (the FEL priority queue alone does not define an order for them)
+	@SuppressWarnings("unchecked") // fel is a raw PriorityQueue in EvSched (abcmod.jar)
+	public void addEventNotice(int evName, double time, Object obj) {
+		fel.add(new SeqEventNotice(evName, time, obj, eventSeq++));
+	}
 
 	// Translates event id to name(for loggin)
 	public String getEventName(int num) {
@@ -100,17 +310,39 @@ class MemManage extends EvSched // Event Scheduling Simulation program
 			return ("EndMemoryAccess");
 		case EndMemoryAccess:
 			return ("EndMemoryAccess");
+		case EndDeviceIO:
+			return ("EndDeviceIO");
+		case EndWriteBack:
+			return ("EndWriteBack");
+		case CleanerWakeup:
+			return ("CleanerWakeup");
+		case LoadControlSample:
+			return ("LoadControlSample");
 		}
 		return ("Unknown");
 	}
 
 	public void processEvent(int fEvent, Object obj) {
+		if (metrics != null)
+			metrics.event();
 		switch (fEvent) {
 		case EndPageFault:
 			endPageFault((Process) obj);
 			break;
 		case EndMemoryAccess:
-			endMemoryAccess();
+			endMemoryAccess((Cpu) obj);
+			break;
+		case EndDeviceIO:
+			endDeviceIO((BackingStore.Operation) obj);
+			break;
+		case EndWriteBack:
+			endWriteBack((Process) obj);
+			break;
+		case CleanerWakeup:
+			pageCleaner();
+			break;
+		case LoadControlSample:
+			loadControl();
 			break;
 		default:
 			System.out.println("Bad future event" + fEvent);
@@ -121,122 +353,587 @@ class MemManage extends EvSched // Event Scheduling Simulation program
 	private void endPageFault(Process cProcess) // finished a page fault operation
 	{
 		kernel.timeLastFault = clock;
+		kernel.writeBacksPending = 0;
 		KernelFunctions.pageReplacement(cProcess.vpage, cProcess, kernel);
+		if (kernel.writeBacksPending > 0) // dirty page replaced - written back before the process continues
+			addEventNotice(EndWriteBack, clock + kernel.writeBacksPending * WriteBackTime, cProcess);
+		else
+			faultServed(cProcess);
+		preConditions(); // start activities
+	}
+
+	// finished writing back the dirty pages replaced by the fault of cProcess
+	private void endWriteBack(Process cProcess) {
+		faultServed(cProcess);
+		preConditions(); // start activities
+	}
+
+	// The fault of cProcess has been served - back to the ready queue
+	// (swapped out if suspended while it waited)
+	private void faultServed(Process cProcess) {
 		if (!ioQueue.remove(cProcess))
 			System.out.println("Process " + cProcess.pid + " not in ioQueue");
+		else if (cProcess.suspended)
+			swapOut(cProcess);
 		else
 			readyQueue.add(cProcess);
+	}
+
+	// Run of the page cleaner - writes back dirty pages not referenced since its last run
+	private void pageCleaner() {
+		int n = KernelFunctions.cleanPages(kernel, cleanerBatch, clock - cleanerPeriod);
+		if ((n > 0) && (backingStore != null)) { // asynchronous write on the paging device
+			backingStore.writeRequest(null, n, clock);
+			startDeviceIO();
+		}
+		addEventNotice(CleanerWakeup, clock + cleanerPeriod);
+	}
+
+	// Sample of the load control - suspends or resumes a process
+	private void loadControl() {
+		double idle = 0;
+		int decision;
+
+		for (Cpu cpu : kernel.cpus)
+			idle += cpu.idleTime(clock);
+		decision = loadControl.sample(phiStats.number, numMemAccesses + phiStats.number, idle, kernel.cpus.length,
+				processes.length - loadControl.suspended.size(), clock);
+		if (decision == LoadControl.Suspend)
+			suspendProcess();
+		else if (decision == LoadControl.Resume)
+			resumeProcess();
+		addEventNotice(LoadControlSample, clock + loadControl.period);
 		preConditions(); // start activities
 	}
 
-	private void endMemoryAccess() // endMemoryAcess SCS
+	// Suspends the process holding the most frames among the ready processes
+	// and those waiting for a fault (swapped out when the fault is served)
+	private void suspendProcess() {
+		Process victim = null;
+
+		for (Process prc : readyQueue)
+			if ((victim == null) || (prc.numFramesUsed > victim.numFramesUsed))
+				victim = prc;
+		for (Process prc : processes) // not the ioQueue set - its order changes from run to run
+			if (ioQueue.contains(prc) && !prc.suspended
+					&& ((victim == null) || (prc.numFramesUsed > victim.numFramesUsed)))
+				victim = prc;
+		if (victim == null)
+			return; // all processes executing - tried again at the next sample
+		victim.suspended = true;
+		if (readyQueue.remove(victim))
+			swapOut(victim);
+		loadControl.suspended(victim, clock);
+	}
+
+	// Resumes the process suspended first - its pages are loaded back by its
+	// faults (with local replacement, only when it can get frames)
+	private void resumeProcess() {
+		Process prc;
+
+		if (!kernel.globalReplacement && (kernel.numFree < Kernel.MinFrames))
+			return;
+		prc = loadControl.resume();
+		prc.suspended = false;
+		if (!ioQueue.contains(prc)) // else not swapped out yet
+			readyQueue.add(prc);
+	}
+
+	// Takes the frames of suspended process prc - its dirty pages are written
+	// back asynchronously
+	private void swapOut(Process prc) {
+		kernel.writeBacksPending = 0;
+		KernelFunctions.swapOut(prc, kernel);
+		if ((kernel.writeBacksPending > 0) && (backingStore != null)) {
+			backingStore.writeRequest(null, kernel.writeBacksPending, clock);
+			startDeviceIO();
+		}
+		kernel.writeBacksPending = 0;
+	}
+
+	// finished an I/O operation of the backing store - loads the pages read
+	// (pages read ahead first, so that they cannot replace the faulting page)
+	private void endDeviceIO(BackingStore.Operation op) {
+		kernel.timeLastFault = clock;
+		backingStore.endIO(op, clock);
+		for (BackingStore.Request r : op.requests) {
+			if (r.write) { // write back - the process (if any) waited for it
+				if (r.prc != null)
+					faultServed(r.prc);
+				continue;
+			}
+			kernel.writeBacksPending = 0;
+			for (int i = 1; i < r.numPages; i++)
+				KernelFunctions.prefetchPage(r.pages[i], r.prc, kernel, clock);
+			KernelFunctions.pageReplacement(r.vpage, r.prc, kernel);
+			if (kernel.writeBacksPending > 0) // dirty pages replaced - written back before the process continues
+				backingStore.writeRequest(r.prc, kernel.writeBacksPending, clock);
+			else
+				faultServed(r.prc);
+		}
+		startDeviceIO();
+		preConditions(); // start activities
+	}
+
+	// Starts the next I/O operation of the backing store if the device is free
+	private void startDeviceIO() {
+		BackingStore.Operation op = backingStore.startIO();
+		if (op != null)
+			addEventNotice(EndDeviceIO, clock + op.serviceTime, op);
+	}
+
+	private void endMemoryAccess(Cpu cpu) // endMemoryAcess SCS
 	{
+		memoryAccessDone(cpu);
+		preConditions(); // start activities
+	}
+
+	// endMemoryAccess SCS without starting activities
+	private void memoryAccessDone(Cpu cpu) {
 		// PageFault and AccessMemory Terminating Event SCS
-		KernelFunctions.doneMemAccess(kernel.processExecuting.vpage, kernel.processExecuting, clock); // flag last
-																										// memory access
-		if (kernel.processExecuting.numMemAccess <= 0) {
-			readyQueue.add(kernel.processExecuting); // adding current process to ready queue
-			kernel.processExecuting = (Process) readyQueue.poll();
-			if (kernel.processExecuting == null) {
+		Process prc = cpu.processExecuting;
+
+		if (cpu.tlbMiss && prc.pageTable.isValid(prc.vpage))
+			cpu.tlb.fill(prc, prc.vpage, prc.pageTable.mappingShift(prc.vpage));
+		KernelFunctions.doneMemAccess(prc.vpage, prc, clock, kernel); // flag last memory access
+		if (prc.numMemAccess <= 0) {
+			readyQueue.add(prc); // adding current process to ready queue
+			prc = (Process) readyQueue.poll();
+			cpu.processExecuting = prc;
+			if (prc == null) {
 				System.out.println("Error - no process on ready queue");
 			}
-			kernel.processExecuting.numMemAccess = memoryAccesses.nextInt();
+			prc.numMemAccess = memoryAccesses.nextInt();
 		}
-		if (kernel.processExecuting.numMA2ChangeWS <= 0)
-			kernel.processExecuting.updateWS();
+		if (prc.numMA2ChangeWS <= 0)
+			prc.updateWS();
 		else
-			kernel.processExecuting.numMA2ChangeWS--;
-		if (kernel.processExecuting.vpageFromFault != -1) {
-			kernel.processExecuting.vpage = kernel.processExecuting.vpageFromFault;
-			kernel.processExecuting.vpageFromFault = -1;
+			prc.numMA2ChangeWS--;
+		if (prc.vpageFromFault != -1) {
+			prc.vpage = prc.vpageFromFault;
+			prc.vpageFromFault = -1;
 		} else
-			kernel.processExecuting.vpage = selectAddress(kernel.processExecuting);
-		kernel.action = nextAction(kernel.processExecuting.vpage, kernel.processExecuting);
-		preConditions(); // start activities
+			prc.vpage = selectAddress(prc);
+		if ((prc.vpage == -1) && !trace.ended) { // prc has no more references in the trace - it stops
+			dispatch(cpu);
+			return;
+		}
+		cpu.action = nextAction(prc.vpage, prc, cpu);
+	}
+
+	// True when a memory access started now can be completed without going
+	// through the FEL: the next event is strictly later than the end of the
+	// access (ties are left to the FEL so event ordering stays the same) and
+	// the run would not be stopped after the current event. Only with one
+	// CPU - the others must see the accesses in time order.
+	private boolean canCompleteAccessNow(double accessTime) {
+		EventNotice nxt = (EventNotice) fel.peek();
+		if ((kernel.cpus.length > 1) || (nxt == null) || (nxt.timeAttr <= clock + accessTime))
+			return (false);
+		return (!implicitStopCondition());
 	}
 
-	// Check for starting events
+	// Check for starting events - on each CPU until none can start an activity
 	private void preConditions() {
+		boolean started;
+
+		do {
+			started = false;
+			for (Cpu cpu : kernel.cpus)
+				started |= preConditions(cpu);
+		} while (started && (kernel.cpus.length > 1));
+	}
+
+	// Starts the activities of cpu - returns true if it started any
+	private boolean preConditions(Cpu cpu) {
+		boolean started = false;
+
 		while (true) // loop until no preconditions are true
 		{
-			if (kernel.action == Kaction.PAGEFAULT) {
-				phiTimeBtwFaults.put(clock, clock - kernel.timeLastFault);
-				Process cProcess = kernel.processExecuting;
+			if ((trace != null) && trace.ended) // no reference issued after the end of the trace
+				break;
+			if (cpu.action == Kaction.PAGEFAULT) {
+				phiStats.put(clock, clock - kernel.timeLastFault);
+				if (phiTimeBtwFaults != null)
+					phiTimeBtwFaults.put(clock, clock - kernel.timeLastFault);
+				Process cProcess = cpu.processExecuting;
 				cProcess.vpageFromFault = cProcess.vpage; // flag page that caused fault
 				ioQueue.add(cProcess);
-				kernel.processExecuting = (Process) readyQueue.poll(); // Next process
-				if (kernel.processExecuting == null)
-					kernel.action = Kaction.IDLE; // no processes to execute
-				else { // Execute the next process
-					kernel.processExecuting.numMemAccess = memoryAccesses.nextInt();
-					if (kernel.processExecuting.vpageFromFault != -1) {
-						kernel.processExecuting.vpage = kernel.processExecuting.vpageFromFault;
-						kernel.processExecuting.vpageFromFault = -1;
-					} else
-						kernel.processExecuting.vpage = selectAddress(kernel.processExecuting);
-					kernel.action = nextAction(kernel.processExecuting.vpage, kernel.processExecuting);
+				cpu.numFaults++;
+				if (metrics != null)
+					metrics.fault();
+				if (runLength != null)
+					runLength.reference(true, clock);
+				dispatch(cpu); // Next process
+				if (backingStore == null)
+					addEventNotice(EndPageFault, clock + FaultTime, cProcess);
+				else { // request queued to the paging device
+					backingStore.request(cProcess, cProcess.vpage, clock);
+					startDeviceIO();
 				}
-				addEventNotice(EndPageFault, clock + FaultTime, cProcess);
-			} else if (kernel.action == Kaction.MEMACCESS) {
-				kernel.action = Kaction.ACCESSING;
-				kernel.processExecuting.numMemAccess--;
+			} else if (cpu.action == Kaction.MEMACCESS) {
+				cpu.action = Kaction.ACCESSING;
+				cpu.processExecuting.numMemAccess--;
+				cpu.numMemAccesses++;
 				numMemAccesses++;
-				addEventNotice(EndMemoryAccess, clock + MemTime);
-			} else if ((kernel.action == Kaction.IDLE) && (readyQueue.size() != 0)) // StartExecuting Action
-			{
-				kernel.processExecuting = (Process) readyQueue.poll(); // Next process
-				kernel.processExecuting.numMemAccess = memoryAccesses.nextInt();
-				if (kernel.processExecuting.vpageFromFault != -1) {
-					kernel.processExecuting.vpage = kernel.processExecuting.vpageFromFault;
-					kernel.processExecuting.vpageFromFault = -1;
+				if (metrics != null)
+					metrics.access();
+				if (runLength != null)
+					runLength.reference(false, clock);
+				double accessTime = cpu.tlbMiss ? MemTime + cpu.tlb.missPenalty : MemTime;
+				if (fastMemAccess && canCompleteAccessNow(accessTime)) {
+					clock = clock + accessTime; // end of the access
+					memoryAccessDone(cpu); // sets the next action
 				} else
-					kernel.processExecuting.vpage = selectAddress(kernel.processExecuting);
-				kernel.action = nextAction(kernel.processExecuting.vpage, kernel.processExecuting);
-			} else
+					addEventNotice(EndMemoryAccess, clock + accessTime, cpu);
+			} else if ((cpu.action == Kaction.IDLE) && (readyQueue.size() != 0)) // StartExecuting Action
+				dispatch(cpu);
+			else
+				break;
+			started = true;
+		}
+		return (started);
+	}
+
+	// Executes the next process of the ready queue on cpu (idle if none) - the
+	// processes with no more references in the trace are left out
+	private void dispatch(Cpu cpu) {
+		Process prc = (Process) readyQueue.poll();
+
+		while ((prc != null) && !nextReference(prc))
+			prc = (Process) readyQueue.poll();
+		cpu.processExecuting = prc;
+		if (prc == null) {
+			cpu.idle(clock); // no processes to execute
+			return;
+		}
+		cpu.busy(clock);
+		cpu.action = nextAction(prc.vpage, prc, cpu);
+	}
+
+	// Selects the page of the next reference of prc dispatched - false if it
+	// has no more references in the trace (unless the whole trace has ended)
+	private boolean nextReference(Process prc) {
+		prc.numMemAccess = memoryAccesses.nextInt();
+		if (prc.vpageFromFault != -1) {
+			prc.vpage = prc.vpageFromFault;
+			prc.vpageFromFault = -1;
+		} else
+			prc.vpage = selectAddress(prc);
+		return ((prc.vpage != -1) || trace.ended);
+	}
+
+	// Sets the frame allocation policy - call before runSimulation
+	public void setAllocationPolicy(AllocationPolicy policy) {
+		kernel.allocationPolicy = policy;
+		KernelFunctions.allocateFrames(processes, kernel);
+	}
+
+	// Sets the order in which free frames are reused (FIFO by default) - call
+	// before runSimulation
+	public void setFreeListOrder(FreeListOrder order) {
+		kernel.freeListOrder = order;
+	}
+
+	// Sets global replacement - the victim is chosen among the frames of all
+	// processes, which are not limited by an allocation (see
+	// KernelFunctions.globalAllocation). Only the algorithms with a global
+	// variant (FIFO, LRU, LRUSCAN, CLOCK, ESCLOCK and COUNT) can replace
+	// globally: ARC, CLOCKPRO, TWOQ and OPT keep their lists per process, and
+	// are left with local replacement - call before runSimulation
+	public void setGlobalReplacement(boolean global) {
+		if (global && (kernel.pagingAlgorithm.globalVictim == null)) {
+			System.out.println("No global variant of " + kernel.pagingAlgorithm + " - local replacement kept");
+			return;
+		}
+		kernel.globalReplacement = global;
+	}
+
+	// Sets the organisation of the page tables of the processes (all
+	// LINEAR by default) - call before runSimulation
+	public void setPageTable(PageTableType type) {
+		HashedPageTable.Store store = new HashedPageTable.Store(2 * NumFrames);
+
+		pageTableType = type;
+		numWalks = 0; // the first page was looked up in the linear tables
+		walkRefs = 0;
+		for (Process prc : processes) {
+			switch (type) {
+			case RADIX2:
+				prc.pageTable = new RadixPageTable(prc.numPages, 2, 10, 10, false);
+				break;
+			case RADIX4:
+				prc.pageTable = new RadixPageTable(prc.numPages, 4, 9, 9, false);
+				break;
+			case HUGE: // huge pages of 4 pages - to the scale of the simulated processes
+				prc.pageTable = new RadixPageTable(prc.numPages, 4, 9, 2, true);
+				break;
+			case HASHED:
+				prc.pageTable = new HashedPageTable(store, prc.pid, prc.numPages);
 				break;
+			default:
+				prc.pageTable = new LinearPageTable(prc.numPages);
+				break;
+			}
+		}
+	}
+
+	// Bytes used by the page tables of all processes
+	public long pageTableFootprint() {
+		long bytes = 0;
+		for (Process prc : processes)
+			bytes += prc.pageTable.footprint();
+		return (bytes);
+	}
+
+	// Sets the TLB in front of the page tables (without one, every access
+	// takes MemTime) - each CPU gets a TLB configured as tlb (tlb itself for
+	// the first CPU) - call before runSimulation
+	public void setTlb(Tlb tlb) {
+		kernel.cpus[0].tlb = tlb;
+		for (int i = 1; i < kernel.cpus.length; i++)
+			kernel.cpus[i].tlb = tlb.copy();
+	}
+
+	// Sets the number of CPUs (1 by default) - the processes of the ready
+	// queue are executed by the idle CPUs, which share the frames and the
+	// paging device - call before runSimulation
+	public void setCpus(int n) {
+		Cpu[] cpus = Arrays.copyOf(kernel.cpus, n);
+
+		for (int i = kernel.cpus.length; i < n; i++) {
+			cpus[i] = new Cpu(i, clock);
+			if (cpus[0].tlb != null)
+				cpus[i].tlb = cpus[0].tlb.copy();
 		}
+		kernel.cpus = cpus;
+		preConditions(); // the new CPUs start executing the ready processes
+	}
+
+	// TLB hit rate of all CPUs
+	public double tlbHitRate() {
+		long hits = 0, misses = 0;
+
+		for (Cpu cpu : kernel.cpus)
+			if (cpu.tlb != null) {
+				hits += cpu.tlb.hits;
+				misses += cpu.tlb.misses;
+			}
+		return ((double) hits / Math.max(1, hits + misses));
+	}
+
+	// Sets the maximum fraction (up to 1) of the pages of each segment that a
+	// working set can hold (0.5 by default) - from the next working set change
+	public void setWsFraction(double f) {
+		if ((f <= 0) || (f > 1)) {
+			System.out.println("Working set fraction " + f + " not in (0, 1] - kept at " + processes[0].wsFraction);
+			return;
+		}
+		for (Process prc : processes)
+			prc.wsFraction = f;
+	}
+
+	// Ends the run (before tftime) when the confidence interval of the fault
+	// rate after the transient is narrow enough (see RunLengthControl) - call
+	// before runSimulation
+	public void setRunLengthControl(RunLengthControl rc) {
+		runLength = rc;
+	}
+
+	// Sets the paging device serving the page faults (without one, each fault
+	// takes FaultTime and the faults are served in parallel) - call before runSimulation
+	public void setBackingStore(BackingStore bs) {
+		backingStore = bs;
+		for (Process prc : processes)
+			prc.prefetched = (bs.prefetchPages > 0) ? new BitSet(prc.numPages) : null;
+	}
+
+	// Starts the page cleaner - every period, up to batch dirty pages not
+	// referenced during the period are written back - call before runSimulation
+	public void setPageCleaner(double period, int batch) {
+		cleanerPeriod = period;
+		cleanerBatch = batch;
+		addEventNotice(CleanerWakeup, clock + cleanerPeriod);
+	}
+
+	// Starts the load control (see LoadControl) - call before runSimulation
+	public void setLoadControl(LoadControl lc) {
+		loadControl = lc;
+		addEventNotice(LoadControlSample, clock + lc.period);
+	}
+
+	// Adds n processes - copies of the processes of the model (process i
+	// copies process i % 4, with the seeds of copy i / 4 - see Seeds.copySeed)
+	// to load the system - call before the other set methods and
+	// runSimulation, not with a trace
+	public void addProcesses(int n, Seeds sd) {
+		int[][] seeds = { { sd.prc1, sd.maprc1, sd.bernprc1 }, { sd.prc2, sd.maprc2, sd.bernprc2 },
+				{ sd.prc3, sd.maprc3, sd.bernprc3 }, { sd.prc4, sd.maprc4, sd.bernprc4 } };
+		Process[] prcs = Arrays.copyOf(processes, processes.length + n);
+		Process p;
+
+		for (int i = processes.length; i < prcs.length; i++) {
+			p = processes[i % 4];
+			prcs[i] = new Process(100 + i, p.numCodePages, p.numDataPages, p.numStackPages, p.numHeapPages,
+					p.meanMA, sd.copySeed(seeds[i % 4][0], i / 4), sd.copySeed(seeds[i % 4][1], i / 4),
+					sd.copySeed(seeds[i % 4][2], i / 4), sd.exactRandom);
+			if ((backingStore != null) && (backingStore.prefetchPages > 0))
+				prcs[i].prefetched = new BitSet(prcs[i].numPages);
+			readyQueue.add(prcs[i]);
+		}
+		processes = prcs;
+		preConditions(); // idle CPUs execute the new processes
+	}
+
+	// Registers the live counters of the run (see MemManageMetrics) with the
+	// platform MBean server - call before runSimulation
+	public void registerMetrics() {
+		metrics = new MemManageMetrics(this);
+		try {
+			metricsName = new ObjectName("MemManage:type=Simulation,id=" + numRegistered.incrementAndGet()
+					+ ",algorithm=" + kernel.pagingAlgorithm);
+			ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, metricsName);
+		} catch (JMException e) {
+			System.out.println("Metrics not registered: " + e);
+			metricsName = null;
+		}
+	}
+
+	// Removes the MBean of the run (the counters are kept in metrics)
+	public void unregisterMetrics() {
+		if (metricsName == null)
+			return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsName);
+		} catch (JMException e) {
+			System.out.println("Metrics not unregistered: " + e);
+		}
+		metricsName = null;
+	}
+
+	// Computes the miss ratio curve of each process from its references
+	// (faults for every number of frames) - call before runSimulation
+	public void analyzeMissRatio() {
+		for (Process prc : processes)
+			prc.missRatio = new MissRatioCurve(prc.numPages);
 	}
 
 	public boolean implicitStopCondition() // termination explicit
 	{
+		if ((trace != null) && trace.ended) // all references in the trace replayed
+			return (true);
+		if ((runLength != null) && runLength.done) // fault rate estimated with the precision wanted
+			return (true);
 		return (false);
 	}
 
 	/************ Implementation User defined Modules ***********/
-	public int selectAddress(Process prc) // returns virtual page number being addressed
+	public int selectAddress(Process prc) // returns virtual page number being addressed (-1 when prc has no more references in the trace)
 	{
-		return prc.selectAddressPrc();
+		int vp;
+
+		if (trace != null) {
+			vp = trace.nextPage(prc);
+			if (vp == -1)
+				return (-1);
+		} else {
+			if (kernel.globalReplacement) // the free frames may have been taken by other processes
+				KernelFunctions.globalAllocation(prc, kernel);
+			vp = prc.selectAddressPrc();
+		}
+		if (recorder != null)
+			recorder.record(prc.pid, vp);
+		prc.selectAccessType(vp);
+		return (vp);
 	} // defined as part of the class
 
-	public Kaction nextAction(int vpage, Process prc) {
-		if (prc.pageTable[vpage].valid)
+	public Kaction nextAction(int vpage, Process prc, Cpu cpu) {
+		if (vpage == -1) // no more references in the trace - nothing to access
+			return (Kaction.IDLE);
+		if (cpu.tlb != null) { // page table walked on a miss, TLB loaded at the end of the access
+			cpu.tlb.contextSwitch(prc); // flush when prc was not executing (without ASIDs)
+			cpu.tlbMiss = !cpu.tlb.lookup(prc, vpage);
+			if (!cpu.tlbMiss)
+				return (Kaction.MEMACCESS);
+		}
+		numWalks++;
+		walkRefs += prc.pageTable.walkCost(vpage);
+		if (prc.pageTable.isValid(vpage))
 			return (Kaction.MEMACCESS);
 		else
 			return (Kaction.PAGEFAULT);
 	}
 
 	public void computeOutput() {
-		phiTimeBtwFaults.computePhiDSOVs();
-		numPer1000 = (phiTimeBtwFaults.number * 1000) / (numMemAccesses + phiTimeBtwFaults.number);
+		if (recorder != null)
+			recorder.close();
+		if (trace != null)
+			trace.close();
+		phiStats.computePhiDSOVs();
+		if (phiTimeBtwFaults != null)
+			phiTimeBtwFaults.computePhiDSOVs();
+		numPer1000 = (phiStats.number * 1000) / (numMemAccesses + phiStats.number);
+	}
+
+	// Effective access time - mean time of a reference: memory access, page
+	// table walk on the TLB misses (no walk cost without a TLB), fault service
+	// (FaultTime, or the mean device wait) and dirty pages written back at the
+	// faults (without backing store)
+	public double effectiveAccessTime() {
+		long refs = Math.max(1, numMemAccesses + phiStats.number);
+		double t = MemTime;
+
+		for (Cpu cpu : kernel.cpus)
+			if (cpu.tlb != null)
+				t += cpu.tlb.missPenalty * cpu.tlb.misses / refs;
+		if (backingStore != null)
+			t += backingStore.meanWait() * phiStats.number / refs;
+		else
+			t += (FaultTime * phiStats.number + WriteBackTime * kernel.numWriteBacks) / refs;
+		return (t);
 	}
 }
 
 // Defining the Consumer entities - the Process
-class Process {
+class Process implements Serializable {
+	private static final long serialVersionUID = 1L;
 	// -----------------------------------------
 	// General process data structures
 	int pid; // Process ID
 	public int numPages; // Number of virtual pages
-	public PgTblEntry[] pageTable; // Page table
-	public int[] workingSet; // List of virtual pages in working set
+	public PageTable pageTable; // Page table
+	int[] lruPrev; // LRU recency list links (indexed by virtual page, header at numPages)
+	int[] lruNext;
+	public int[] workingSet; // List of virtual pages in working set (the first wsSegments[3] + 1 entries)
+	int[] wsPerm; // pages in the order of the partial Fisher-Yates shuffles (scratch of the sampler)
+	double wsFraction; // maximum fraction of the pages of a segment in the working set
+	static final double WsFraction = 0.5; // default
 	int numAllocatedFrames; // Number of allocated physical frames
 	int[] allocatedFrames; // List of allocated frames - contains frame numbers
+	int numFramesUsed; // Number of entries of allocatedFrames holding a frame
+	// for allocation schemes and their output
+	int refsSinceFault; // number of references since the last page fault
+	long numRefs; // number of references
+	long numFaults; // number of page faults
+	long framesUsedSum; // sum of numFramesUsed over the references (for the mean resident set)
+	int[] wsRefs; // working set window - last references (ring buffer, WSET policy only)
+	int wsRefIx; // next index in wsRefs
+	int[] wsCount; // number of references to each page in the window
+	int wsSize; // number of pages in the working set
 	int framePtr; // index into allocatedFrames.
+	transient PageReplacer replacer; // page replacement strategy (created at the first page fault)
+	transient MissRatioCurve missRatio; // faults for each number of frames (null unless analyzed)
+	BitSet prefetched; // pages read ahead not referenced yet (null without read-ahead)
+	long numPrefetched; // number of pages read ahead
+	long numPrefetchHits; // number of pages read ahead referenced before being replaced
 	// -----------------------------------------
 	// for Simulation of process execution to create locality of reference
-	Poisson prcMA2ChangeWS; // for getting a discrete random number
-	Uniform prcDiscreteRandom; // for getting a discrete random number
-	Binomial prcBern; // To create Bernouilli random number generator
+	PoissonBlock prcMA2ChangeWS; // for getting a discrete random number
+	RefGenerator refs; // page selection, reuse (Bernouilli) and access type numbers
+	static final double[] WriteProb = { 0.0, 0.3, 0.5, 0.4 }; // probability of a write - code, data, stack, heap
+	boolean write; // the reference to vpage is a write
+	long numWriteBacks; // dirty pages of the process written back when replaced
+	boolean suspended; // suspended by the load control (see MemManage.suspendProcess)
 	int numMemAccess; // number of memory accesses during a cycle executing
 	int numMA2ChangeWS; // number of memory accesses to change working set
 	public int[] wsSegments; // defines indexes in workingSet to divide into segments (code, data, etc.)
@@ -247,13 +944,19 @@ class Process {
 	int numDataPages; // Data segment
 	int numStackPages; // Stack segment
 	int numHeapPages; // Heap segment
+	int meanMA; // mean number of memory accesses between working set changes
 
 	public Process(int pid, int nCode, int nData, int nStack, int nHeap, int meanMA, int sd1, int sd2, int sd3) {
+		this(pid, nCode, nData, nStack, nHeap, meanMA, sd1, sd2, sd3, false);
+	}
+
+	// exactRandom - reproduces the references of earlier versions (see Seeds.exactRandom)
+	public Process(int pid, int nCode, int nData, int nStack, int nHeap, int meanMA, int sd1, int sd2, int sd3,
+			boolean exactRandom) {
 		int i; // an index
 		// Setup random number generators
-		prcDiscreteRandom = new Uniform(new MersenneTwister(sd1));
-		prcMA2ChangeWS = new Poisson(meanMA, new MersenneTwister(sd2));
-		prcBern = new Binomial(1, 0.90, new MersenneTwister(sd3));
+		refs = new RefGenerator(sd1, sd3, exactRandom);
+		prcMA2ChangeWS = new PoissonBlock(new Poisson(meanMA, new MersenneTwister(sd2)));
 		// Setup process numbers
 		this.pid = pid;
 		numPages = nCode + nData + nStack + nHeap;
@@ -261,16 +964,26 @@ class Process {
 		numDataPages = nData;
 		numStackPages = nStack;
 		numHeapPages = nHeap;
-		// Setup the page table entry - all invalid
-		pageTable = new PgTblEntry[numPages];
+		this.meanMA = meanMA;
+		vpageFromFault = -1; // no fault yet - the first page is selected when the process first executes
+		// Setup the page table - all invalid
+		pageTable = new LinearPageTable(numPages);
+		// Setup the LRU recency list - empty (only the header is linked)
+		lruPrev = new int[numPages + 1];
+		lruNext = new int[numPages + 1];
 		for (i = 0; i < numPages; i++) {
-			pageTable[i] = new PgTblEntry();
-			pageTable[i].valid = false;
-			pageTable[i].used = false;
-			pageTable[i].tmStamp = 0;
+			lruPrev[i] = -1;
+			lruNext[i] = -1;
 		}
+		lruPrev[numPages] = numPages;
+		lruNext[numPages] = numPages;
 		allocateFrames(); // Allocates frames - current fixed allocation
 		// Setup working set and list to generate page references
+		workingSet = new int[numPages];
+		wsPerm = new int[numPages];
+		for (i = 0; i < numPages; i++)
+			wsPerm[i] = i;
+		wsFraction = WsFraction;
 		wsSegments = new int[7]; // 0 - end of code 1 - end of data 2 - end of stack 3 - end of heap
 		// 4 - next section to address.
 		// 5,6 - pages to create locality of reference
@@ -280,13 +993,12 @@ class Process {
 	public void updateWS() {
 		int ncode, ndata, nstack, nheap; // number of pages in each segment
 		int ix; // index into working set
-		int i;
 
 		// Radomly select number of pages from each segment
-		ncode = prcDiscreteRandom.nextIntFromTo(1, (numCodePages / 2));
-		ndata = prcDiscreteRandom.nextIntFromTo(1, (numDataPages / 2));
-		nstack = prcDiscreteRandom.nextIntFromTo(1, (numStackPages / 2));
-		nheap = prcDiscreteRandom.nextIntFromTo(1, (numHeapPages / 2));
+		ncode = refs.nextIntFromTo(1, (int) (numCodePages * wsFraction));
+		ndata = refs.nextIntFromTo(1, (int) (numDataPages * wsFraction));
+		nstack = refs.nextIntFromTo(1, (int) (numStackPages * wsFraction));
+		nheap = refs.nextIntFromTo(1, (int) (numHeapPages * wsFraction));
 		if (ncode == 0)
 			ncode = 1;
 		if (ndata == 0)
@@ -296,45 +1008,52 @@ class Process {
 		if (nheap == 0)
 			nheap = 1;
 
-		workingSet = new int[ncode + ndata + nstack + nheap];
-		ix = 0;
-		for (i = 0; i < ncode; i++) // Code pages
-		{
-			workingSet[ix] = getPageNumforWS(0, numCodePages - 1, workingSet, ix);
-			ix++;
-		}
+		ix = sampleSegment(0, numCodePages - 1, ncode, 0); // Code pages
 		wsSegments[0] = ix - 1; // defines how many code pages are in working set
-		for (i = 0; i < ndata; i++) // Data pages
-		{
-			workingSet[ix] = getPageNumforWS(numCodePages, numCodePages + numDataPages - 1, workingSet, ix);
-			ix++;
-		}
+		ix = sampleSegment(numCodePages, numCodePages + numDataPages - 1, ndata, ix); // Data pages
 		wsSegments[1] = ix - 1; // defines how many data pages are in working set
-		for (i = 0; i < nstack; i++) // Stack pages
-		{
-			workingSet[ix] = getPageNumforWS(numCodePages + numDataPages,
-					numCodePages + numDataPages + numStackPages - 1, workingSet, ix);
-			ix++;
-		}
+		ix = sampleSegment(numCodePages + numDataPages, numCodePages + numDataPages + numStackPages - 1, nstack,
+				ix); // Stack pages
 		wsSegments[2] = ix - 1; // defines how many stack pages are in working set
-		for (i = 0; i < nheap; i++) // Heap pages
-		{
-			workingSet[ix] = getPageNumforWS(numCodePages + numDataPages + numStackPages,
-					numCodePages + numDataPages + numStackPages + numHeapPages - 1, workingSet, ix);
-			ix++;
-		}
+		ix = sampleSegment(numCodePages + numDataPages + numStackPages,
+				numCodePages + numDataPages + numStackPages + numHeapPages - 1, nheap, ix); // Heap pages
 		wsSegments[3] = ix - 1; // defines how many heap pages are in working set
 		wsSegments[4] = 0; // start with a code page
 		numMA2ChangeWS = prcMA2ChangeWS.nextInt(); // Number of references before changing working set
 	}
 
+	// Puts k distinct pages of [start, end] in the working set from index ix -
+	// returns the index after them. Partial Fisher-Yates shuffle of the pages of
+	// the segment in wsPerm (k draws, whatever the fraction of the segment).
+	// With the Colt streams (and the default fraction), the pages are drawn until
+	// not in the list as in earlier versions (at most half the segment).
+	private int sampleSegment(int start, int end, int k, int ix) {
+		int i, j, p;
+
+		if (refs.exact && (wsFraction == WsFraction)) {
+			for (i = 0; i < k; i++) {
+				workingSet[ix] = getPageNumforWS(start, end, workingSet, ix);
+				ix++;
+			}
+			return (ix);
+		}
+		for (i = start; i < start + k; i++) {
+			j = refs.nextIntFromTo(i, end);
+			p = wsPerm[j];
+			wsPerm[j] = wsPerm[i];
+			wsPerm[i] = p;
+			workingSet[ix++] = p;
+		}
+		return (ix);
+	}
+
 	private int getPageNumforWS(int start, int end, int[] list, int len) {
 		int num;
 		while (true) { // Keep asking for number until one not in list found
 						// This can take a while if numbers in list contains
 						// most of the numbers being selected AND an
 						// infinite loop if all numbers are in the list
-			num = prcDiscreteRandom.nextIntFromTo(start, end);
+			num = refs.nextIntFromTo(start, end);
 			if (notInIntArray(num, list, len))
 				return (num);
 		}
@@ -358,8 +1077,8 @@ class Process {
 		int pageSelected;
 		// Define start index and end index of segment into Working set
 		// Skip if 0 or 1 - code or data segments
-		if ((areAllocatedFramesFull()) && (prcBern.nextInt() == 1)) { // Select from the allocated pages
-			num = prcDiscreteRandom.nextIntFromTo(5, 6); // using code and other page
+		if ((areAllocatedFramesFull()) && (refs.nextBern() == 1)) { // Select from the allocated pages
+			num = refs.nextIntFromTo(5, 6); // using code and other page
 			pageSelected = wsSegments[num]; // reusing pages
 		} else {// Select from the working set
 			if (wsSegments[4] == 0)
@@ -373,7 +1092,7 @@ class Process {
 			{
 				pageSelected = workingSet[end];
 			} else {
-				num = prcDiscreteRandom.nextIntFromTo(start, end);
+				num = refs.nextIntFromTo(start, end);
 				pageSelected = workingSet[num];
 			}
 			if (wsSegments[4] == 0) // code segment
@@ -386,9 +1105,7 @@ class Process {
 	}
 
 	public boolean areAllocatedFramesFull() {
-		if (allocatedFrames == null)
-			return (false);
-		if (allocatedFrames.length < numAllocatedFrames)
+		if (numFramesUsed < numAllocatedFrames)
 			return (false);
 		return (true);
 
@@ -397,77 +1114,239 @@ class Process {
 	// ******************************************************************
 	// Methods for supporting allocation schemes
 	// ******************************************************************
+	// Selects whether the reference to vpage is a read or a write (depending on
+	// the segment of the page) - separate generator, so the pages referenced
+	// are the same with and without access types
+	public boolean selectAccessType(int vpage) {
+		write = refs.nextWrite() < WriteProb[segment(vpage)];
+		return (write);
+	}
+
+	// Returns the segment holding vpage - 0 code, 1 data, 2 stack, 3 heap
+	public int segment(int vpage) {
+		if (vpage < numCodePages)
+			return (0);
+		if (vpage < numCodePages + numDataPages)
+			return (1);
+		if (vpage < numCodePages + numDataPages + numStackPages)
+			return (2);
+		return (3);
+	}
+
+	// Returns the end (exclusive) of the segment (code, data, stack or heap) holding vpage
+	public int segmentEnd(int vpage) {
+		int end = numCodePages;
+
+		if (vpage < end)
+			return (end);
+		end += numDataPages;
+		if (vpage < end)
+			return (end);
+		end += numStackPages;
+		if (vpage < end)
+			return (end);
+		return (numPages);
+	}
+
 	public void allocateFrames() {
 		numAllocatedFrames = 5;
-		allocatedFrames = null; // no frames allocated yet
+		allocatedFrames = new int[numAllocatedFrames]; // no frames allocated yet
+		numFramesUsed = 0;
 		framePtr = 0; // point to the first entry - not used until allocateFrames is filled
 						// This is to support FIFO replacement algorithm
 	}
 }
 
 // Defining the Resource entity - the kernel
-class Kernel {
+class Kernel implements Serializable {
+	private static final long serialVersionUID = 1L;
 	public int numFrames;
+	// Free frame list - fixed capacity ring buffer of numFrames entries
 	public int[] freeList;
-	public Process processExecuting; // executing process
-	public Kaction action; // Action to be taken - set to:
-	// ACCESSING - in the middle of accessing memory
-	// MEMACESS - next action is to access memory no page fault
-	// PAGEFAULT - next action is to access memory with page fault
+	int freeHead; // index of the first free frame in freeList
+	int numFree; // number of free frames in freeList
+	FreeListOrder freeListOrder; // order in which free frames are reused
+	// Inverted frame table - indexed by frame number
+	public Process[] frameOwner; // process holding the frame (null if free)
+	public int[] frameVPage; // virtual page loaded in the frame (-1 if free)
+	boolean checkFrameTable; // when true, frame table lookups are checked against the page table
+	Cpu[] cpus; // processors - executing process and next action of each
 	double timeLastFault; // time of last page fault.
 	PagingAlgorithm pagingAlgorithm;
+	// Frame allocation
+	static final int MinFrames = 2; // minimum number of frames of a process (dynamic policies)
+	AllocationPolicy allocationPolicy;
+	int wsWindow; // working set window (references) - WSET
+	double pffUpper; // fault rate (faults per reference) above which a frame is added - PFF
+	double pffLower; // fault rate below which a frame is released - PFF
+	// Global replacement
+	boolean globalReplacement; // when true, the victim is chosen among the frames of all processes
+								// (see MemManage.setGlobalReplacement)
+	int frameHand; // next frame examined by global FIFO, CLOCK and COUNT
+	int[] frameLruPrev; // recency list of frames for global LRU (header at numFrames)
+	int[] frameLruNext;
+	// Dirty pages
+	long numWriteBacks; // dirty pages written back when their frame was taken
+	int writeBacksPending; // write backs not yet charged to a page fault
+	long numCleaned; // dirty pages written back by the page cleaner
+	int cleanerHand; // next frame examined by the page cleaner
+	// Page replacement - creates the strategy of each process (pagingAlgorithm's by default)
+	transient java.util.function.Function<Process, PageReplacer> replacerFactory;
 
 	public Kernel(int numFrames, PagingAlgorithm pgAlg) {
+		this(numFrames, pgAlg, FreeListOrder.FIFO);
+	}
+
+	public Kernel(int numFrames, PagingAlgorithm pgAlg, FreeListOrder order) {
 		int i;
 		pagingAlgorithm = pgAlg;
+		replacerFactory = pgAlg.replacer;
+		allocationPolicy = AllocationPolicy.FIXED;
+		wsWindow = 50;
+		pffUpper = 0.10;
+		pffLower = 0.02;
 		timeLastFault = 0;
-		action = Kaction.PAGEFAULT;
+		cpus = new Cpu[] { new Cpu(0, 0) };
+		cpus[0].action = Kaction.PAGEFAULT;
 		this.numFrames = numFrames;
+		freeListOrder = order;
 		freeList = new int[numFrames];
 		for (i = 0; i < numFrames; i++)
 			freeList[i] = i;
+		freeHead = 0;
+		numFree = numFrames;
+		frameOwner = new Process[numFrames];
+		frameVPage = new int[numFrames];
+		for (i = 0; i < numFrames; i++)
+			frameVPage[i] = -1;
+		checkFrameTable = false;
+		globalReplacement = false;
+		frameHand = 0;
+		frameLruPrev = new int[numFrames + 1];
+		frameLruNext = new int[numFrames + 1];
+		for (i = 0; i < numFrames; i++) {
+			frameLruPrev[i] = -1;
+			frameLruNext[i] = -1;
+		}
+		frameLruPrev[numFrames] = numFrames;
+		frameLruNext[numFrames] = numFrames;
+	}
+
+	// Returns a new page replacement strategy for process prc
+	public PageReplacer newReplacer(Process prc) {
+		return (replacerFactory.apply(prc));
+	}
+
+	// Moves frame fr to the most recently used end of the frame recency list
+	public void touchFrame(int fr) {
+		unlinkFrame(fr);
+		frameLruPrev[fr] = frameLruPrev[numFrames];
+		frameLruNext[fr] = numFrames;
+		frameLruNext[frameLruPrev[numFrames]] = fr;
+		frameLruPrev[numFrames] = fr;
+	}
+
+	// Removes frame fr from the frame recency list
+	public void unlinkFrame(int fr) {
+		if (frameLruNext[fr] == -1)
+			return; // not in the list
+		frameLruNext[frameLruPrev[fr]] = frameLruNext[fr];
+		frameLruPrev[frameLruNext[fr]] = frameLruPrev[fr];
+		frameLruNext[fr] = -1;
+		frameLruPrev[fr] = -1;
+	}
+
+	// Least recently used frame
+	public int lruFrame() {
+		return (frameLruNext[numFrames]);
+	}
+
+	// Records that virtual page vpage of process prc is loaded in frame fr
+	public void mapFrame(int fr, Process prc, int vpage) {
+		if (frameOwner[fr] != null)
+			pageRemoved(fr); // page replaced
+		frameOwner[fr] = prc;
+		frameVPage[fr] = vpage;
+	}
+
+	// Clears the frame table entry for frame fr (frame no longer holds a page)
+	public void unmapFrame(int fr) {
+		if (frameOwner[fr] != null)
+			pageRemoved(fr);
+		frameOwner[fr] = null;
+		frameVPage[fr] = -1;
+	}
+
+	// The page in frame fr loses its frame - written back if dirty, its
+	// translation removed from the TLBs (shootdown on every CPU)
+	void pageRemoved(int fr) {
+		writeBack(fr);
+		for (Cpu cpu : cpus)
+			if (cpu.tlb != null)
+				cpu.tlb.invalidate(frameOwner[fr], frameVPage[fr]);
+	}
+
+	// Writes back the page in frame fr if it is dirty (the frame is taken from it)
+	void writeBack(int fr) {
+		Process owner = frameOwner[fr];
+		int vp = frameVPage[fr];
+
+		if (owner.pageTable.isDirty(vp)) {
+			owner.pageTable.setDirty(vp, false);
+			owner.numWriteBacks++;
+			numWriteBacks++;
+			writeBacksPending++;
+		}
 	}
 
 	public int getNextFreeFrame() {
-		int[] fl;
 		int freeFrame;
-		int i;
 
-		if (freeList == null)
+		if (numFree == 0)
 			return (-1); // list is empty return -1
-		freeFrame = freeList[0]; // gets next free frame
-		// Update the freeList (removes the head)
-		fl = new int[freeList.length - 1];
-		if (freeList.length == 1)
-			freeList = null;
-		else {
-			for (i = 0; i < freeList.length - 1; i++)
-				fl[i] = freeList[i + 1];
-			freeList = fl;
+		numFree--;
+		if (freeListOrder == FreeListOrder.LIFO) // take the most recently returned frame
+			freeFrame = freeList[(freeHead + numFree) % numFrames];
+		else { // FIFO - removes the head
+			freeFrame = freeList[freeHead];
+			freeHead = (freeHead + 1) % numFrames;
 		}
 		// Return free frame
 		return (freeFrame);
 	}
 
 	public void returnFrame2FreeList(int fr) {
-		int[] fl; // to create new free list
-		int i;
-
-		// Update the freeList (removes the head)
-		if (freeList == null) {
-			freeList = new int[1];
-			freeList[0] = fr;
-		} else {
-			fl = new int[freeList.length + 1]; // create new list and copy current list
-			for (i = 0; i < freeList.length; i++)
-				fl[i] = freeList[i];
-			fl[i] = fr; // appends newly released frame
-			freeList = fl;
+		unmapFrame(fr);
+		unlinkFrame(fr);
+		if (numFree == numFrames) {
+			System.out.println("Free list is full - cannot return frame " + fr);
+			return;
 		}
+		freeList[(freeHead + numFree) % numFrames] = fr; // appends newly released frame
+		numFree++;
 	}
 
 }
 
+// Event notice with a sequence number to order events with the same time
+class SeqEventNotice extends EventNotice {
+	long seq;
+
+	public SeqEventNotice(int evName, double time, Object obj, long seq) {
+		super(evName, time, obj);
+		this.seq = seq;
+	}
+
+	public int compareTo(Object o) {
+		EventNotice ev = (EventNotice) o;
+		if (timeAttr != ev.timeAttr)
+			return ((timeAttr < ev.timeAttr) ? -1 : 1);
+		if (ev instanceof SeqEventNotice)
+			return (Long.compare(seq, ((SeqEventNotice) ev).seq));
+		return (0);
+	}
+}
+
 class Seeds {
 	int mAcc; // for number of memory accesses
 	int dRand; // kernel random number generator
@@ -483,6 +1362,12 @@ class Seeds {
 	int bernprc2; // process 2 random number generator
 	int bernprc3; // process 3 random number generator
 	int bernprc4; // process 4 random number generator
+	// reproduce the runs of earlier versions with these seeds - the references
+	// drawn from the Colt streams (see RefGenerator), the working sets
+	// sampled by rejection instead of Fisher-Yates (see Process.sampleSegment)
+	// and the seeds of the copies of the processes not mixed (see copySeed -
+	// the streams of the copies then overlap the streams of the processes)
+	boolean exactRandom;
 
 	public Seeds(int sd1, int sd2, int sd3, int sd4, int sd5, int sd6, int sd7, int sd8, int sd9, int sd10, int sd11,
 			int sd12, int sd13, int sd14) {
@@ -501,4 +1386,15 @@ class Seeds {
 		bernprc3 = sd13;
 		bernprc4 = sd14;
 	}
+
+	// Seed of copy number copy of a process seeded with sd (copy 0 is the
+	// process itself) - for the processes beyond the first 4 (see
+	// MemManage.addProcesses, TraceReader.createProcesses). The seed is mixed
+	// (SplitMix64) so that the streams of a copy do not overlap the streams
+	// of the other processes; sd + copy with exactRandom, as in earlier versions.
+	public int copySeed(int sd, int copy) {
+		if (exactRandom || (copy == 0))
+			return (sd + copy);
+		return ((int) (RefGenerator.mix(sd + copy * RefGenerator.Gamma) >>> 32));
+	}
 }
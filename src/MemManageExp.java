@@ -34,9 +34,11 @@ class MemManageExp
        // Use FIFO page replacement algorithm
        System.out.println("Running simulation using FIFO");
        mmng = new MemManage(PagingAlgorithm.FIFO,startTime,endTime,sds);
+       mmng.registerMetrics();
        mmng.runSimulation();
+       mmng.unregisterMetrics();
        mmng.computeOutput();
-       System.out.println("Number of faults: "+mmng.phiTimeBtwFaults.number);
+       System.out.println("Number of faults: "+mmng.phiStats.number);
        System.out.println("Number memory accesses (no faults): "+mmng.numMemAccesses);
        System.out.println("Number of faults per 1000 references: "+mmng.numPer1000);
        System.out.println();
@@ -44,9 +46,11 @@ class MemManageExp
        // Use CLOCK page replacement algorithm
        System.out.println("Running simulation using CLOCK");
        mmng = new MemManage(PagingAlgorithm.CLOCK,startTime,endTime,sds);
+       mmng.registerMetrics();
        mmng.runSimulation();
+       mmng.unregisterMetrics();
        mmng.computeOutput();
-       System.out.println("Number of faults: "+mmng.phiTimeBtwFaults.number);
+       System.out.println("Number of faults: "+mmng.phiStats.number);
        System.out.println("Number memory accesses (no faults): "+mmng.numMemAccesses);
        System.out.println("Number of faults per 1000 references: "+mmng.numPer1000);
        System.out.println();
@@ -54,9 +58,11 @@ class MemManageExp
        // Use LRU page replacement algorithm
        System.out.println("Running simulation using LRU");
        mmng = new MemManage(PagingAlgorithm.LRU,startTime,endTime,sds);
+       mmng.registerMetrics();
        mmng.runSimulation();
+       mmng.unregisterMetrics();
        mmng.computeOutput();
-       System.out.println("Number of faults: "+mmng.phiTimeBtwFaults.number);
+       System.out.println("Number of faults: "+mmng.phiStats.number);
        System.out.println("Number memory accesses (no faults): "+mmng.numMemAccesses);
        System.out.println("Number of faults per 1000 references: "+mmng.numPer1000);
        System.out.println();
@@ -64,9 +70,11 @@ class MemManageExp
        // Use Counting page replacement algorithm
        System.out.println("Running simulation using COUNT");
        mmng = new MemManage(PagingAlgorithm.COUNT,startTime,endTime,sds);
+       mmng.registerMetrics();
        mmng.runSimulation();
+       mmng.unregisterMetrics();
        mmng.computeOutput();
-       System.out.println("Number of faults: "+mmng.phiTimeBtwFaults.number);
+       System.out.println("Number of faults: "+mmng.phiStats.number);
        System.out.println("Number memory accesses (no faults): "+mmng.numMemAccesses);
        System.out.println("Number of faults per 1000 references: "+mmng.numPer1000);
        System.out.println();
@@ -0,0 +1,142 @@
+// File: MemManageMetrics.java
+// Description:
+//    Live counters of a run of the simulation, exported as an MBean (see
+//    MemManage.registerMetrics). The simulation thread increments the
+//    counters (LongAdder - cheap, and read safely by the JMX threads); the
+//    rolling fault rate is kept over blocks of BlockRefs references, the last
+//    WindowBlocks of them. The clock, the queue depths and the per process
+//    counts are read from the model as the run executes - approximate, but
+//    enough to spot a stalled or thrashing run without stopping it.
+
+// Import packages
+import java.util.concurrent.atomic.*;
+
+class MemManageMetrics implements MemManageMetricsMBean {
+	static final int BlockRefs = 1000; // references in a block of the rolling fault rate
+	static final int WindowBlocks = 10; // blocks in the window of the rolling fault rate
+	MemManage model;
+	LongAdder accesses = new LongAdder();
+	LongAdder faults = new LongAdder();
+	LongAdder events = new LongAdder();
+	// Rolling fault rate - updated by the simulation thread only
+	int blockRefs; // references in the current block
+	int blockFaults; // faults in the current block
+	int[] window = new int[WindowBlocks]; // faults of the last blocks (ring buffer)
+	volatile int ix; // next block in window
+	volatile int numBlocks; // blocks in window
+	// Events per second - state of the last read
+	long lastEvents;
+	long lastTime; // wall-clock time (ns)
+
+	public MemManageMetrics(MemManage model) {
+		this.model = model;
+		lastTime = System.nanoTime();
+	}
+
+	// A memory access with no page fault
+	void access() {
+		accesses.increment();
+		if (++blockRefs == BlockRefs)
+			endBlock();
+	}
+
+	// A page fault
+	void fault() {
+		faults.increment();
+		blockFaults++;
+		if (++blockRefs == BlockRefs)
+			endBlock();
+	}
+
+	// An event taken from the FEL
+	void event() {
+		events.increment();
+	}
+
+	private void endBlock() {
+		window[ix] = blockFaults;
+		ix = (ix + 1) % WindowBlocks;
+		if (numBlocks < WindowBlocks)
+			numBlocks++;
+		blockRefs = 0;
+		blockFaults = 0;
+	}
+
+	public double getClock() {
+		return (model.clock);
+	}
+
+	public long getMemAccesses() {
+		return (accesses.sum());
+	}
+
+	public long getFaults() {
+		return (faults.sum());
+	}
+
+	public double getFaultsPer1000() {
+		long f = faults.sum();
+
+		return ((f * 1000.0) / Math.max(1, f + accesses.sum()));
+	}
+
+	public double getRollingFaultsPer1000() {
+		int n = numBlocks;
+		long f = 0;
+
+		if (n == 0) // first block not complete
+			return (getFaultsPer1000());
+		for (int i = 0; i < n; i++)
+			f += window[i];
+		return ((f * 1000.0) / (n * BlockRefs));
+	}
+
+	public int getReadyQueueDepth() {
+		return (model.readyQueue.size());
+	}
+
+	public int getIoQueueDepth() {
+		return (model.ioQueue.size());
+	}
+
+	public int[] getPids() {
+		Process[] prcs = model.processes;
+		int[] pids = new int[prcs.length];
+
+		for (int i = 0; i < prcs.length; i++)
+			pids[i] = prcs[i].pid;
+		return (pids);
+	}
+
+	public int[] getResidentSets() {
+		Process[] prcs = model.processes;
+		int[] frames = new int[prcs.length];
+
+		for (int i = 0; i < prcs.length; i++)
+			frames[i] = prcs[i].numFramesUsed;
+		return (frames);
+	}
+
+	public long[] getProcessFaults() {
+		Process[] prcs = model.processes;
+		long[] f = new long[prcs.length];
+
+		for (int i = 0; i < prcs.length; i++)
+			f[i] = prcs[i].numFaults;
+		return (f);
+	}
+
+	public long getEventsProcessed() {
+		return (events.sum());
+	}
+
+	public synchronized double getEventsPerSecond() {
+		long now = System.nanoTime();
+		long ev = events.sum();
+		double rate = (ev - lastEvents) / Math.max(1e-9, (now - lastTime) / 1e9);
+
+		lastEvents = ev;
+		lastTime = now;
+		return (rate);
+	}
+}
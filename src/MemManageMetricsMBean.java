@@ -0,0 +1,31 @@
+// File: MemManageMetricsMBean.java
+// Description:
+//    Management interface of the live counters of a run of the simulation
+//    (see MemManageMetrics, MemManage.registerMetrics) - read with JConsole
+//    or any JMX client while the run executes.
+
+public interface MemManageMetricsMBean {
+	double getClock(); // simulated time
+
+	long getMemAccesses(); // memory accesses with no page faults
+
+	long getFaults(); // page faults
+
+	double getFaultsPer1000(); // faults per 1000 references since the start
+
+	double getRollingFaultsPer1000(); // faults per 1000 references over the last references
+
+	int getReadyQueueDepth();
+
+	int getIoQueueDepth();
+
+	int[] getPids(); // processes - the entries of the arrays below
+
+	int[] getResidentSets(); // frames held by each process
+
+	long[] getProcessFaults(); // page faults of each process
+
+	long getEventsProcessed(); // events taken from the FEL
+
+	double getEventsPerSecond(); // events processed per wall-clock second since the last read
+}
@@ -0,0 +1,182 @@
+// File: MissRatioCurve.java
+// Description:
+//    Miss ratio curve of a process - the number of page faults it would have
+//    for each number of frames, computed in one pass over its references.
+//    LRU (exact) - Mattson's stack algorithm: a reference faults with c frames
+//    when its stack distance (number of distinct pages referenced since the
+//    last reference to the same page) is greater than c. The distances are
+//    counted with a Fenwick tree over the reference positions holding a 1 at
+//    the last reference of each page, so each reference costs O(log n).
+//    CLOCK (approximate) - CLOCK has no stack property, so it is simulated for
+//    a set of sizes at the same time (all sizes for small processes) and the
+//    faults for the other sizes are interpolated between them.
+
+class MissRatioCurve {
+	static final int MaxClockSizes = 32; // number of CLOCK sizes simulated
+	int numPages;
+	long numRefs; // number of references
+	long coldMisses; // first references to a page (fault whatever the number of frames)
+	long[] distCount; // distCount[d] - number of references with stack distance d (1..numPages)
+	// Fenwick tree over reference positions - a 1 at the last reference to each page
+	int[] tree; // 1-based
+	int nextPos; // position of the next reference
+	int[] lastPos; // position of the last reference to each page (0 if none)
+	int[] pageAt; // page referenced at each position
+	// CLOCK simulated sizes
+	int[] clockSizes; // increasing numbers of frames
+	long[] clockFaults; // faults for each simulated size
+	int[][] clockFrames; // pages in the frames of each size (in load order)
+	int[][] clockFrameOf; // frame of each page for each size (-1 if not loaded)
+	boolean[][] clockUsed; // used bit of each frame
+	int[] clockLoaded; // number of frames loaded for each size
+	int[] clockHand; // next frame examined for each size
+
+	public MissRatioCurve(int numPages) {
+		int n;
+		int i;
+
+		this.numPages = numPages;
+		numRefs = 0;
+		coldMisses = 0;
+		distCount = new long[numPages + 1];
+		tree = new int[4 * numPages + 1024];
+		nextPos = 1;
+		lastPos = new int[numPages];
+		pageAt = new int[tree.length];
+		// CLOCK sizes - every size up to MaxClockSizes pages, else spread geometrically
+		n = Math.min(numPages, MaxClockSizes);
+		clockSizes = new int[n];
+		for (i = 0; i < n; i++)
+			clockSizes[i] = (numPages <= MaxClockSizes) ? i + 1
+					: (int) Math.round(Math.pow(numPages, (double) i / (n - 1)));
+		for (i = 1; i < n; i++) // rounding may give the same size twice
+			if (clockSizes[i] <= clockSizes[i - 1])
+				clockSizes[i] = clockSizes[i - 1] + 1;
+		clockFaults = new long[n];
+		clockFrames = new int[n][];
+		clockFrameOf = new int[n][numPages];
+		clockUsed = new boolean[n][];
+		clockLoaded = new int[n];
+		clockHand = new int[n];
+		for (i = 0; i < n; i++) {
+			clockFrames[i] = new int[clockSizes[i]];
+			clockUsed[i] = new boolean[clockSizes[i]];
+			java.util.Arrays.fill(clockFrameOf[i], -1);
+		}
+	}
+
+	// Adds a reference to vpage
+	public void reference(int vpage) {
+		int last;
+
+		numRefs++;
+		if (nextPos == tree.length)
+			compact();
+		last = lastPos[vpage];
+		if (last == 0)
+			coldMisses++;
+		else {
+			// distinct pages referenced after last, plus vpage itself
+			distCount[sum(nextPos - 1) - sum(last) + 1]++;
+			add(last, -1);
+		}
+		add(nextPos, 1);
+		pageAt[nextPos] = vpage;
+		lastPos[vpage] = nextPos++;
+		for (int i = 0; i < clockSizes.length; i++)
+			clockReference(i, vpage);
+	}
+
+	// Number of faults with the given number of frames - LRU replacement
+	public long lruFaults(int frames) {
+		long faults = coldMisses;
+		for (int d = Math.max(frames + 1, 1); d <= numPages; d++)
+			faults += distCount[d];
+		return (faults);
+	}
+
+	// Number of faults with the given number of frames - CLOCK replacement
+	// (exact for the simulated sizes, interpolated between them)
+	public long clockFaults(int frames) {
+		int i;
+		double f;
+
+		if (frames >= numPages)
+			return (coldMisses);
+		if (frames <= clockSizes[0])
+			return (clockFaults[0]);
+		for (i = 1; clockSizes[i] < frames; i++)
+			;
+		if (clockSizes[i] == frames)
+			return (clockFaults[i]);
+		f = (double) (frames - clockSizes[i - 1]) / (clockSizes[i] - clockSizes[i - 1]);
+		return (Math.round(clockFaults[i - 1] + f * (clockFaults[i] - clockFaults[i - 1])));
+	}
+
+	// Faults per 1000 references
+	public double lruPer1000(int frames) {
+		return ((1000.0 * lruFaults(frames)) / Math.max(1, numRefs));
+	}
+
+	public double clockPer1000(int frames) {
+		return ((1000.0 * clockFaults(frames)) / Math.max(1, numRefs));
+	}
+
+	// CLOCK with clockSizes[i] frames - same as KernelFunctions.victimCLOCK
+	// (the hand stays on the frame it replaced)
+	void clockReference(int i, int vpage) {
+		int fr = clockFrameOf[i][vpage];
+		int[] frames = clockFrames[i];
+		boolean[] used = clockUsed[i];
+
+		if (fr == -1) {
+			clockFaults[i]++;
+			if (clockLoaded[i] < frames.length)
+				fr = clockLoaded[i]++;
+			else {
+				while (used[clockHand[i]]) {
+					used[clockHand[i]] = false;
+					clockHand[i] = (clockHand[i] + 1) % frames.length;
+				}
+				fr = clockHand[i];
+				clockFrameOf[i][frames[fr]] = -1;
+			}
+			frames[fr] = vpage;
+			clockFrameOf[i][vpage] = fr;
+		}
+		used[fr] = true;
+	}
+
+	// Renumbers the last references of the pages 1, 2, ... (keeping their
+	// order) so that the tree does not grow with the number of references
+	void compact() {
+		int n = 0;
+		int vp;
+
+		java.util.Arrays.fill(tree, 0);
+		for (int pos = 1; pos < nextPos; pos++) {
+			vp = pageAt[pos];
+			if (lastPos[vp] == pos) { // last reference to vp
+				n++;
+				lastPos[vp] = n;
+				pageAt[n] = vp;
+				add(n, 1);
+			}
+		}
+		nextPos = n + 1;
+	}
+
+	// Fenwick tree - adds v at position pos
+	void add(int pos, int v) {
+		for (; pos < tree.length; pos += pos & -pos)
+			tree[pos] += v;
+	}
+
+	// Fenwick tree - sum of positions 1..pos
+	int sum(int pos) {
+		int s = 0;
+		for (; pos > 0; pos -= pos & -pos)
+			s += tree[pos];
+		return (s);
+	}
+}
@@ -0,0 +1,64 @@
+// File: MrcExp.java
+// Description:
+//    Miss ratio curves - one simulation run gives, for each process, the
+//    faults per 1000 references it would have with every number of frames
+//    (LRU exact, CLOCK approximate - see MissRatioCurve), instead of one run
+//    for each allocation size. The last column of the process tables is the
+//    fault rate simulated with the allocation of the run.
+//    Usage: MrcExp [pagingAlgorithm] [endTime] [replication]
+
+// Import packages
+import java.lang.*;
+import java.util.*;
+
+// Main Method: Experiments
+//
+class MrcExp {
+	public static void main(String[] args) {
+		double startTime = 0.0, endTime = 5000000; // 5 seconds
+		PagingAlgorithm alg = PagingAlgorithm.LRU;
+		int rep = 0;
+		MemManage mmng;
+		int maxPages = 0;
+		long refs = 0;
+
+		if (args.length > 0)
+			alg = PagingAlgorithm.valueOf(args[0]);
+		if (args.length > 1)
+			endTime = Double.parseDouble(args[1]);
+		if (args.length > 2)
+			rep = Integer.parseInt(args[2]);
+
+		System.out.println("Running simulation using " + alg);
+		mmng = new MemManage(alg, startTime, endTime, ReplicationExp.repSeeds(rep));
+		mmng.analyzeMissRatio();
+		mmng.runSimulation();
+		mmng.computeOutput();
+		AllocExp.printOutput(mmng);
+
+		for (Process prc : mmng.processes) {
+			MissRatioCurve mrc = prc.missRatio;
+			System.out.println(String.format("Process %d (%d pages, %d references) - faults per 1000 references",
+					prc.pid, prc.numPages, mrc.numRefs));
+			System.out.println("   frames      LRU    CLOCK");
+			for (int c = 1; c <= prc.numPages; c++)
+				System.out.println(String.format("   %6d %8.1f %8.1f%s", c, mrc.lruPer1000(c), mrc.clockPer1000(c),
+						(c == prc.numAllocatedFrames) ? String.format(" (simulated %s %.1f)", alg,
+								1000.0 * prc.numFaults / Math.max(1, prc.numRefs)) : ""));
+			maxPages = Math.max(maxPages, prc.numPages);
+			refs += mrc.numRefs;
+		}
+		// every process given the same number of frames
+		System.out.println("All processes - faults per 1000 references");
+		System.out.println("   frames/process   frames      LRU    CLOCK");
+		for (int c = 1; c <= maxPages; c++) {
+			long lru = 0, clk = 0;
+			for (Process prc : mmng.processes) {
+				lru += prc.missRatio.lruFaults(c);
+				clk += prc.missRatio.clockFaults(c);
+			}
+			System.out.println(String.format("   %14d %8d %8.1f %8.1f", c, c * mmng.processes.length,
+					1000.0 * lru / Math.max(1, refs), 1000.0 * clk / Math.max(1, refs)));
+		}
+	}
+}
@@ -0,0 +1,73 @@
+// File: OptExp.java
+// Description:
+//    Compares the paging algorithms with optimal replacement (OPT) on the
+//    same references. The references of a simulation run are recorded to a
+//    trace file (first pass); the trace is then replayed with OPT and with
+//    each algorithm. A replay stops when a process has no more references in
+//    the trace, so the replays are given a much longer end time than the
+//    recorded run. Reports the faults per 1000 references of each algorithm
+//    and its distance to the OPT lower bound.
+//    Usage: OptExp [endTime] [replication] [traceFile]
+
+// Import packages
+import java.lang.*;
+import java.util.*;
+import java.io.*;
+
+// Main Method: Experiments
+//
+class OptExp {
+	public static void main(String[] args) throws IOException {
+		double startTime = 0.0, endTime = 5000000; // 5 seconds
+		int rep = 0;
+		File traceFile;
+		MemManage mmng;
+		double optPer1000;
+
+		if (args.length > 0)
+			endTime = Double.parseDouble(args[0]);
+		if (args.length > 1)
+			rep = Integer.parseInt(args[1]);
+		if (args.length > 2)
+			traceFile = new File(args[2]);
+		else {
+			traceFile = File.createTempFile("memmanage", ".trace");
+			traceFile.deleteOnExit();
+		}
+
+		// First pass - record the references
+		TraceRecorder rec = new TraceRecorder(traceFile.getPath());
+		mmng = new MemManage(PagingAlgorithm.FIFO, startTime, endTime, ReplicationExp.repSeeds(rep), null, null,
+				rec);
+		mmng.runSimulation();
+		mmng.computeOutput();
+		System.out.println("Number of references recorded: " + rec.numRefs);
+
+		// Second pass - replay with OPT, then with each algorithm
+		mmng = replay(PagingAlgorithm.OPT, traceFile, startTime, 1000 * endTime, rep);
+		optPer1000 = per1000(mmng);
+		System.out.printf("%-8s faults per 1000 references: %8.3f (lower bound)%n", PagingAlgorithm.OPT,
+				optPer1000);
+		for (PagingAlgorithm alg : new PagingAlgorithm[] { PagingAlgorithm.FIFO, PagingAlgorithm.LRU,
+				PagingAlgorithm.CLOCK, PagingAlgorithm.COUNT, PagingAlgorithm.ARC, PagingAlgorithm.CLOCKPRO,
+				PagingAlgorithm.TWOQ }) {
+			mmng = replay(alg, traceFile, startTime, 1000 * endTime, rep);
+			System.out.printf("%-8s faults per 1000 references: %8.3f (OPT %+8.3f, %5.2f x OPT)%n", alg,
+					per1000(mmng), per1000(mmng) - optPer1000, per1000(mmng) / optPer1000);
+		}
+	}
+
+	static MemManage replay(PagingAlgorithm alg, File traceFile, double startTime, double endTime, int rep)
+			throws IOException {
+		TraceReader trace = new TraceReader(traceFile.getPath());
+		MemManage mmng = new MemManage(alg, startTime, endTime, ReplicationExp.repSeeds(rep), null, trace, null);
+		mmng.runSimulation();
+		mmng.computeOutput();
+		return (mmng);
+	}
+
+	// Faults per 1000 references (numPer1000 without rounding)
+	static double per1000(MemManage mmng) {
+		return ((1000.0 * mmng.phiStats.number) / (mmng.numMemAccesses + mmng.phiStats.number));
+	}
+}
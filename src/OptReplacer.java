@@ -0,0 +1,138 @@
+// OPT replacement (Belady) - replaces the page whose next use is the furthest
+// in the future. The future references of the process are known from a
+// recorded trace (two passes: the trace is recorded, then replayed with OPT).
+// The position of each reference of the next one to the same page (next-use
+// index) is computed once, backwards over the references. The resident pages
+// are kept in a max heap keyed on their next use, so that the victim is found
+// in O(log frames).
+class OptReplacer implements PageReplacer {
+	static final int Never = Integer.MAX_VALUE; // next use of a page not referenced again
+	int[] refs; // references of the process, in order
+	int[] nextUse; // nextUse[i] - position of the next reference to page refs[i]
+	int[] cursor; // a reference to each page on its nextUse chain (moved forward as the references go)
+	int[] heap; // resident pages - heap[0] has the furthest next use
+	int heapSize;
+	int[] heapPos; // position of each page in heap (-1 if not resident)
+	int[] key; // next use of each resident page
+	boolean mismatch; // a reference differing from the trace was reported
+
+	public OptReplacer(Process prc, int[] refs) {
+		int[] last = new int[prc.numPages]; // position of the next reference to each page
+		int i;
+
+		this.refs = refs;
+		nextUse = new int[refs.length];
+		java.util.Arrays.fill(last, Never);
+		for (i = refs.length - 1; i >= 0; i--) {
+			nextUse[i] = last[refs[i]];
+			last[refs[i]] = i;
+		}
+		cursor = last; // first reference to each page
+		heap = new int[prc.numPages];
+		heapSize = 0;
+		heapPos = new int[prc.numPages];
+		java.util.Arrays.fill(heapPos, -1);
+		key = new int[prc.numPages];
+		mismatch = false;
+	}
+
+	// Next use of vpage referenced now. The current reference is at position
+	// prc.numRefs (numRefs counts the references completed).
+	int nextUse(int vpage, Process prc) {
+		long pos = prc.numRefs;
+
+		if (pos >= refs.length)
+			return (Never); // past the end of the recorded references
+		if ((refs[(int) pos] != vpage) && !mismatch) {
+			System.out.println("OPT - reference " + pos + " of process " + prc.pid + " is page " + vpage
+					+ ", trace has page " + refs[(int) pos]);
+			mismatch = true;
+		}
+		return (nextUse[(int) pos]);
+	}
+
+	public int victim(Process prc, Kernel krn) {
+		int victim = heap[0];
+
+		remove(victim);
+		return (victim);
+	}
+
+	public void pageLoaded(int vpage, Process prc) {
+		long pos = prc.numRefs;
+
+		if ((pos < refs.length) && (refs[(int) pos] != vpage)) { // page read ahead - not the current reference
+			while (cursor[vpage] < pos) // first reference at or after pos (amortized O(1) - pos only grows)
+				cursor[vpage] = nextUse[cursor[vpage]];
+			key[vpage] = cursor[vpage];
+		} else
+			key[vpage] = nextUse(vpage, prc);
+		heapPos[vpage] = heapSize;
+		heap[heapSize++] = vpage;
+		siftUp(heapPos[vpage]);
+	}
+
+	public void pageAccessed(int vpage, Process prc) {
+		int old = key[vpage];
+
+		if (heapPos[vpage] == -1)
+			return;
+		key[vpage] = nextUse(vpage, prc);
+		if (key[vpage] > old)
+			siftUp(heapPos[vpage]);
+		else
+			siftDown(heapPos[vpage]);
+	}
+
+	public void pageEvicted(int vpage, Process prc) {
+		if (heapPos[vpage] != -1)
+			remove(vpage);
+	}
+
+	// Removes vpage from the heap
+	void remove(int vpage) {
+		int ix = heapPos[vpage];
+		int lastPage = heap[--heapSize];
+
+		heapPos[vpage] = -1;
+		if (lastPage == vpage)
+			return;
+		heap[ix] = lastPage;
+		heapPos[lastPage] = ix;
+		siftUp(ix);
+		siftDown(heapPos[lastPage]);
+	}
+
+	void siftUp(int ix) {
+		int vp = heap[ix];
+		int parent;
+
+		while (ix > 0) {
+			parent = (ix - 1) / 2;
+			if (key[heap[parent]] >= key[vp])
+				break;
+			heap[ix] = heap[parent];
+			heapPos[heap[ix]] = ix;
+			ix = parent;
+		}
+		heap[ix] = vp;
+		heapPos[vp] = ix;
+	}
+
+	void siftDown(int ix) {
+		int vp = heap[ix];
+		int child;
+
+		while ((child = 2 * ix + 1) < heapSize) {
+			if ((child + 1 < heapSize) && (key[heap[child + 1]] > key[heap[child]]))
+				child++;
+			if (key[heap[child]] <= key[vp])
+				break;
+			heap[ix] = heap[child];
+			heapPos[heap[ix]] = ix;
+			ix = child;
+		}
+		heap[ix] = vp;
+		heapPos[vp] = ix;
+	}
+}
@@ -0,0 +1,109 @@
+// Page replacement strategy of a process.
+// The kernel creates one replacer per process (Kernel.newReplacer) and asks
+// it for a victim whenever a resident page of the process must give up its
+// frame: replace() when the frames of the process are full and a page must
+// be loaded, and KernelFunctions.releaseFrame when the allocation policy (or
+// another process) takes a frame away.
+// The other methods are notifications for algorithms keeping their own
+// lists of pages - they do nothing by default, so that the algorithms working
+// only on the page table (FIFO, LRU, CLOCK, COUNT, ESCLOCK) can be given as
+// method references.
+// With global replacement the victim is chosen among the frames of all
+// processes by the global variant of the algorithm (PagingAlgorithm.globalVictim).
+interface PageReplacer {
+
+	// Returns the resident page of prc to be replaced next - the strategy no
+	// longer counts it as resident (the kernel then takes its frame)
+	int victim(Process prc, Kernel krn);
+
+	// Loads vpage in the frame of a resident page of prc (all frames are used)
+	default void replace(int vpage, Process prc, Kernel krn) {
+		KernelFunctions.replacePage(victim(prc, krn), vpage, prc, krn);
+	}
+
+	// vpage is not resident and is about to be loaded (called at each page fault)
+	default void pageFault(int vpage, Process prc) {
+	}
+
+	// vpage has been loaded in a frame (free frame or replaced page)
+	default void pageLoaded(int vpage, Process prc) {
+	}
+
+	// vpage has been accessed (called after each memory access, including the
+	// first access after the page was loaded)
+	default void pageAccessed(int vpage, Process prc) {
+	}
+
+	// vpage has been removed from memory by the kernel and not chosen by
+	// victim() (frame taken by global replacement or process swapped out)
+	default void pageEvicted(int vpage, Process prc) {
+	}
+}
+
+// Doubly linked lists of virtual pages - a page is in at most one of the lists.
+// The links are indexed by page number, so that membership tests, removals
+// and insertions are O(1). The head of a list is its oldest page.
+class PageLists {
+	int[] prev; // previous page in the list (-1 at the head)
+	int[] next; // next page in the list (-1 at the tail)
+	int[] list; // list holding the page (-1 if none)
+	int[] head; // first page of each list (-1 if empty)
+	int[] tail; // last page of each list (-1 if empty)
+	int[] size; // number of pages in each list
+
+	public PageLists(int numPages, int numLists) {
+		prev = new int[numPages];
+		next = new int[numPages];
+		list = new int[numPages];
+		java.util.Arrays.fill(list, -1);
+		head = new int[numLists];
+		tail = new int[numLists];
+		java.util.Arrays.fill(head, -1);
+		java.util.Arrays.fill(tail, -1);
+		size = new int[numLists];
+	}
+
+	// Returns the list holding vpage (-1 if none)
+	public int listOf(int vpage) {
+		return (list[vpage]);
+	}
+
+	// Appends vpage at the tail of list l (removing it from its current list)
+	public void addTail(int l, int vpage) {
+		remove(vpage);
+		prev[vpage] = tail[l];
+		next[vpage] = -1;
+		if (tail[l] == -1)
+			head[l] = vpage;
+		else
+			next[tail[l]] = vpage;
+		tail[l] = vpage;
+		list[vpage] = l;
+		size[l]++;
+	}
+
+	// Removes vpage from its list (nothing done if it is in no list)
+	public void remove(int vpage) {
+		int l = list[vpage];
+		if (l == -1)
+			return;
+		if (prev[vpage] == -1)
+			head[l] = next[vpage];
+		else
+			next[prev[vpage]] = next[vpage];
+		if (next[vpage] == -1)
+			tail[l] = prev[vpage];
+		else
+			prev[next[vpage]] = prev[vpage];
+		list[vpage] = -1;
+		size[l]--;
+	}
+
+	// Removes and returns the head of list l (-1 if the list is empty)
+	public int removeHead(int l) {
+		int vp = head[l];
+		if (vp != -1)
+			remove(vp);
+		return (vp);
+	}
+}
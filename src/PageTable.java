@@ -0,0 +1,58 @@
+// File: PageTable.java
+// Description:
+//    Page table of a process - the entry fields of each virtual page
+//    (frame, valid, used, dirty, time stamp, count) used by the kernel
+//    functions and the simulation model. Organisations:
+//       LinearPageTable - one entry per page, all allocated
+//       RadixPageTable - multi-level tree, nodes allocated as pages are mapped
+//                        (optionally with huge pages)
+//       HashedPageTable - one hash table for all processes, keyed by (pid, vpage)
+//    Entries never set read as invalid, unused, clean, stamp and count 0.
+
+enum PageTableType {
+	LINEAR, // array of numPages entries
+	RADIX2, // two levels of 10 bits (20 bit page numbers - 32 bit addresses)
+	RADIX4, // four levels of 9 bits (x86-64 - 48 bit addresses, page numbers limited to 31 bits)
+	HUGE, // RADIX4 with leaves of 4 pages mapped as huge pages when all loaded
+	HASHED // hashed page table shared by the processes
+}; // Page table organisation - see MemManage.setPageTable
+
+interface PageTable extends java.io.Serializable {
+	int size(); // number of virtual pages
+
+	int getFrame(int vpage);
+
+	void setFrame(int vpage, int fr);
+
+	boolean isValid(int vpage);
+
+	void setValid(int vpage, boolean b);
+
+	boolean isUsed(int vpage);
+
+	void setUsed(int vpage, boolean b);
+
+	boolean isDirty(int vpage);
+
+	void setDirty(int vpage, boolean b);
+
+	long getStamp(int vpage);
+
+	void setStamp(int vpage, long stamp);
+
+	int getCount(int vpage);
+
+	void setCount(int vpage, int cnt);
+
+	// Memory references of a page table walk translating vpage
+	int walkCost(int vpage);
+
+	// Approximate bytes used by the table (4 byte references)
+	long footprint();
+
+	// Log2 of the number of pages mapped by the translation of vpage
+	// (0 - a page, else vpage is in a huge page)
+	default int mappingShift(int vpage) {
+		return (0);
+	}
+}
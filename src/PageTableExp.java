@@ -0,0 +1,148 @@
+// File: PageTableExp.java
+// Description:
+//    Page table organisations (see PageTable) - runs the simulation with each
+//    organisation and a TLB (16 entries, 4-way, ASID tagged), and reports the
+//    fault rate, the memory used by the page tables, the entries read per
+//    page table walk and the TLB hit rate (huge pages extend its reach).
+//    Then maps 4 segments of 256 pages spread over sparse address spaces of
+//    2^20 and 2^29 pages, and reports the memory used and the mean time of a
+//    lookup (isValid and getFrame of a random mapped page) of each table
+//    (see also the bench PageTableBench).
+//    Usage: PageTableExp [pagingAlgorithm] [endTime] [replication]
+
+// Import packages
+import java.lang.*;
+import java.util.*;
+import cern.jet.random.engine.*;
+
+// Main Method: Experiments
+//
+class PageTableExp {
+	static final int SegmentPages = 256;
+	static final int NumLookups = 10000000;
+	static long checksum; // frames found - keeps the timed lookups from being optimised away
+
+	public static void main(String[] args) {
+		double startTime = 0.0, endTime = 5000000; // 5 seconds
+		PagingAlgorithm alg = PagingAlgorithm.LRU;
+		int rep = 0;
+		MemManage mmng;
+
+		if (args.length > 0)
+			alg = PagingAlgorithm.valueOf(args[0]);
+		if (args.length > 1)
+			endTime = Double.parseDouble(args[1]);
+		if (args.length > 2)
+			rep = Integer.parseInt(args[2]);
+
+		for (PageTableType type : PageTableType.values()) {
+			System.out.println("Running simulation using " + alg + " with " + type + " page tables");
+			mmng = new MemManage(alg, startTime, endTime, ReplicationExp.repSeeds(rep));
+			mmng.setPageTable(type);
+			mmng.setTlb(new Tlb(16, 4, TlbPolicy.LRU, true, 2));
+			mmng.runSimulation();
+			mmng.computeOutput();
+			System.out.println("Number of faults per 1000 references: " + mmng.numPer1000);
+			System.out.println(String.format("Page tables: %d bytes, %.3f entries read per walk, TLB hit rate %.4f",
+					mmng.pageTableFootprint(), (double) mmng.walkRefs / Math.max(1, mmng.numWalks),
+					mmng.tlbHitRate()));
+			System.out.println(String.format("Effective access time: %.3f", mmng.effectiveAccessTime()));
+			System.out.println();
+		}
+		for (int numPages : new int[] { 1 << 20, 1 << 29 }) {
+			System.out.println("Sparse address space of " + numPages + " pages, " + 4 * SegmentPages
+					+ " pages mapped");
+			for (PageTableType type : PageTableType.values())
+				sparse(type, numPages);
+			System.out.println();
+		}
+	}
+
+	// Maps the segments in a table of the given type and times the lookups
+	static void sparse(PageTableType type, int numPages) {
+		PageTable ptbl = sparseTable(type, numPages);
+		int[] seq;
+		long walk = 0, sum = 0, t;
+
+		if (ptbl == null) {
+			if (type == PageTableType.LINEAR)
+				System.out.println(String.format("%-8s %12d bytes (not allocated)", type,
+						LinearPageTable.bytes(numPages)));
+			else
+				System.out.println(String.format("%-8s address space too large", type));
+			return;
+		}
+		seq = lookupSequence(numPages, 1 << 16);
+		for (int vp : seq)
+			walk += ptbl.walkCost(vp);
+		for (int r = 0; r < 2; r++) { // the first round warms up the JIT
+			t = System.nanoTime();
+			for (int i = 0; i < NumLookups; i++) {
+				int vp = seq[i & (seq.length - 1)];
+				if (ptbl.isValid(vp))
+					sum += ptbl.getFrame(vp);
+			}
+			t = System.nanoTime() - t;
+			checksum += sum;
+			if (r == 1)
+				System.out.println(String.format("%-8s %12d bytes, %.2f entries read per walk, %.1f ns per lookup",
+						type, ptbl.footprint(), (double) walk / seq.length, (double) t / NumLookups));
+		}
+	}
+
+	// Returns a table of the given type with the segments mapped - null if
+	// the address space is too large for the type (or a linear table too big)
+	static PageTable sparseTable(PageTableType type, int numPages) {
+		PageTable ptbl;
+		int[] pages = segmentPages(numPages);
+
+		switch (type) {
+		case RADIX2:
+			if (numPages > (1 << 20))
+				return (null);
+			ptbl = new RadixPageTable(numPages, 2, 10, 10, false);
+			break;
+		case RADIX4:
+			ptbl = new RadixPageTable(numPages, 4, 9, 9, false);
+			break;
+		case HUGE:
+			ptbl = new RadixPageTable(numPages, 4, 9, 2, true);
+			break;
+		case HASHED:
+			ptbl = new HashedPageTable(new HashedPageTable.Store(16), 100, numPages);
+			break;
+		default:
+			if (LinearPageTable.bytes(numPages) > (64L << 20))
+				return (null);
+			ptbl = new LinearPageTable(numPages);
+			break;
+		}
+		for (int i = 0; i < pages.length; i++) {
+			ptbl.setFrame(pages[i], i % SegmentPages);
+			ptbl.setValid(pages[i], true);
+		}
+		return (ptbl);
+	}
+
+	// The mapped pages - code, data and heap at 0, a quarter and half of
+	// the address space, stack at the end
+	static int[] segmentPages(int numPages) {
+		int[] pages = new int[4 * SegmentPages];
+
+		for (int s = 0; s < 4; s++)
+			for (int i = 0; i < SegmentPages; i++)
+				pages[s * SegmentPages + i] = (s == 3) ? numPages - SegmentPages + i : s * (numPages / 4) + i;
+		return (pages);
+	}
+
+	// n mapped pages chosen at random (n a power of 2)
+	static int[] lookupSequence(int numPages, int n) {
+		int[] pages = segmentPages(numPages);
+		int[] seq = new int[n];
+		MersenneTwister rnd = new MersenneTwister(4357);
+
+		for (int i = 0; i < n; i++)
+			seq[i] = pages[(rnd.nextInt() >>> 1) % pages.length];
+		return (seq);
+	}
+}
@@ -0,0 +1,174 @@
+// File: RadixPageTable.java
+// Description:
+//    Multi-level (radix tree) page table. The page number is split into
+//    "levels" indexes - leafBits bits for the leaf, bits bits for each level
+//    above. Only the root is allocated up front: interior nodes and leaves
+//    are allocated when an entry of their range is first set, so the table
+//    grows with the pages used rather than the size of the address space.
+//    With huge pages, a leaf whose pages are all valid is mapped as one huge
+//    page (2^leafBits pages) by the entry of the level above - its walk stops
+//    one level earlier and the TLB holds one translation for all its pages.
+//    The per-page fields are kept in the leaf for the page replacement
+//    algorithms (as the kernel does when splitting a huge page).
+
+class RadixPageTable implements PageTable {
+	private static final long serialVersionUID = 1L;
+	static final byte Valid = 1, Used = 2, Dirty = 4; // Leaf.flags bits
+	int numPages;
+	int levels; // number of levels, including the leaves
+	int bits; // index bits of the levels above the leaves
+	int leafBits; // index bits of the leaves
+	boolean hugePages;
+	Object[] root; // interior nodes - Object[1 << bits] of children, Leaf at the last level
+	// Output
+	int numInterior; // interior nodes allocated (with the root)
+	int numLeaves; // leaves allocated
+
+	public RadixPageTable(int numPages, int levels, int bits, int leafBits, boolean hugePages) {
+		this.numPages = numPages;
+		this.levels = levels;
+		this.bits = bits;
+		this.leafBits = leafBits;
+		this.hugePages = hugePages;
+		if ((long) numPages > (1L << (bits * (levels - 1) + leafBits)))
+			System.out.println("Error - " + numPages + " pages do not fit in a " + levels + " level page table");
+		root = new Object[1 << bits];
+		numInterior = 1;
+		numLeaves = 0;
+	}
+
+	// Entries of 2^leafBits pages
+	static class Leaf implements java.io.Serializable {
+		private static final long serialVersionUID = 1L;
+		int[] frame;
+		long[] stamp;
+		int[] count;
+		byte[] flags; // Valid, Used and Dirty bits
+		int numValid; // number of valid pages (all - mapped as a huge page)
+
+		Leaf(int n) {
+			frame = new int[n];
+			stamp = new long[n];
+			count = new int[n];
+			flags = new byte[n];
+		}
+	}
+
+	// Returns the leaf holding vpage - null if not allocated and not create
+	Leaf leaf(int vpage, boolean create) {
+		Object[] node = root;
+		int shift = bits * (levels - 2) + leafBits;
+		int ix;
+
+		for (int l = 0; l < levels - 2; l++) { // interior levels
+			ix = (vpage >>> shift) & ((1 << bits) - 1);
+			if (node[ix] == null) {
+				if (!create)
+					return (null);
+				node[ix] = new Object[1 << bits];
+				numInterior++;
+			}
+			node = (Object[]) node[ix];
+			shift -= bits;
+		}
+		ix = (vpage >>> leafBits) & ((1 << bits) - 1);
+		if ((node[ix] == null) && create) {
+			node[ix] = new Leaf(1 << leafBits);
+			numLeaves++;
+		}
+		return ((Leaf) node[ix]);
+	}
+
+	int index(int vpage) {
+		return (vpage & ((1 << leafBits) - 1));
+	}
+
+	boolean flag(int vpage, byte f) {
+		Leaf lf = leaf(vpage, false);
+		return ((lf != null) && ((lf.flags[index(vpage)] & f) != 0));
+	}
+
+	void setFlag(int vpage, byte f, boolean b) {
+		Leaf lf = leaf(vpage, b);
+		int i = index(vpage);
+
+		if (lf == null)
+			return; // clearing an entry never set
+		if (f == Valid && b != ((lf.flags[i] & Valid) != 0))
+			lf.numValid += b ? 1 : -1;
+		lf.flags[i] = (byte) (b ? lf.flags[i] | f : lf.flags[i] & ~f);
+	}
+
+	public int size() {
+		return (numPages);
+	}
+
+	public int getFrame(int vpage) {
+		Leaf lf = leaf(vpage, false);
+		return ((lf == null) ? 0 : lf.frame[index(vpage)]);
+	}
+
+	public void setFrame(int vpage, int fr) {
+		leaf(vpage, true).frame[index(vpage)] = fr;
+	}
+
+	public boolean isValid(int vpage) {
+		return (flag(vpage, Valid));
+	}
+
+	public void setValid(int vpage, boolean b) {
+		setFlag(vpage, Valid, b);
+	}
+
+	public boolean isUsed(int vpage) {
+		return (flag(vpage, Used));
+	}
+
+	public void setUsed(int vpage, boolean b) {
+		setFlag(vpage, Used, b);
+	}
+
+	public boolean isDirty(int vpage) {
+		return (flag(vpage, Dirty));
+	}
+
+	public void setDirty(int vpage, boolean b) {
+		setFlag(vpage, Dirty, b);
+	}
+
+	public long getStamp(int vpage) {
+		Leaf lf = leaf(vpage, false);
+		return ((lf == null) ? 0 : lf.stamp[index(vpage)]);
+	}
+
+	public void setStamp(int vpage, long stamp) {
+		leaf(vpage, true).stamp[index(vpage)] = stamp;
+	}
+
+	public int getCount(int vpage) {
+		Leaf lf = leaf(vpage, false);
+		return ((lf == null) ? 0 : lf.count[index(vpage)]);
+	}
+
+	public void setCount(int vpage, int cnt) {
+		leaf(vpage, true).count[index(vpage)] = cnt;
+	}
+
+	// One entry read per level - one less in a huge page
+	public int walkCost(int vpage) {
+		return ((mappingShift(vpage) != 0) ? levels - 1 : levels);
+	}
+
+	public long footprint() {
+		return ((long) numInterior * 4 * (1 << bits) + (long) numLeaves * (4 + 8 + 4 + 1) * (1 << leafBits));
+	}
+
+	public int mappingShift(int vpage) {
+		Leaf lf;
+
+		if (!hugePages)
+			return (0);
+		lf = leaf(vpage, false);
+		return (((lf != null) && (lf.numValid == lf.flags.length)) ? leafBits : 0);
+	}
+}
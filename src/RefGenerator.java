@@ -0,0 +1,129 @@
+// File: RefGenerator.java
+// Description:
+//    Random numbers of the page references of a process, generated in blocks
+//    of BlockSize into primitive buffers - the selection of a page (see
+//    Process.selectAddressPrc) reads the buffers instead of calling the
+//    distributions at each reference. The pages themselves cannot be
+//    generated in advance: each one depends on whether the frames of the
+//    process are full, which changes at its faults.
+//    Fast (default) - the buffers are filled by SplitMix64 generators seeded
+//       from the seeds of the process. The access types are drawn from a seed
+//       mixed from sd3, not from sd3 + 1, which is the reuse seed of the next
+//       copy of the process in earlier versions (see Seeds.copySeed).
+//    Exact (Seeds.exactRandom) - the buffers are filled from the Colt streams
+//       of the process (same generators and seeds), so the references are the
+//       same as in earlier versions, which drew one number at a time. Same
+//       distributions as the fast generator, other sequences.
+
+// Import packages
+import cern.jet.random.engine.*;
+import cern.jet.random.*;
+
+class RefGenerator implements java.io.Serializable {
+	private static final long serialVersionUID = 1L;
+	static final int BlockSize = 1024; // numbers generated at a time
+	static final double BernP = 0.90; // probability of reusing a page of the allocated frames
+	boolean exact; // the Colt streams instead of SplitMix64
+	// Colt streams (exact - null otherwise)
+	RandomEngine pageEngine; // selection of pages (uniform)
+	Binomial bern; // reuse of a page of the allocated frames
+	RandomEngine writeEngine; // access type (uniform)
+	// SplitMix64 states (fast)
+	long pageSeed;
+	long bernSeed;
+	long writeSeed;
+	// Buffers - the next number is at the index (BlockSize - buffer empty)
+	double[] pageRaw = new double[BlockSize];
+	int pageIx = BlockSize;
+	int[] bernBits = new int[BlockSize];
+	int bernIx = BlockSize;
+	double[] writeRaw = new double[BlockSize];
+	int writeIx = BlockSize;
+
+	public RefGenerator(int sd1, int sd3, boolean exact) {
+		this.exact = exact;
+		if (exact) {
+			pageEngine = new MersenneTwister(sd1);
+			bern = new Binomial(1, BernP, new MersenneTwister(sd3));
+			writeEngine = new MersenneTwister(sd3 + 1);
+		}
+		pageSeed = sd1;
+		bernSeed = sd3;
+		writeSeed = mix(sd3 + Gamma); // a SplitMix64 step - independent of the other seeds
+	}
+
+	// Uniform integer in [from, to] - as Uniform.nextIntFromTo
+	public int nextIntFromTo(int from, int to) {
+		if (pageIx == BlockSize)
+			fillPage();
+		return ((int) (from + (long) ((1L + to - from) * pageRaw[pageIx++])));
+	}
+
+	// 1 with probability BernP, else 0 - as Binomial(1, BernP).nextInt
+	public int nextBern() {
+		if (bernIx == BlockSize)
+			fillBern();
+		return (bernBits[bernIx++]);
+	}
+
+	// Uniform in (0, 1) - as Uniform.nextDouble
+	public double nextWrite() {
+		if (writeIx == BlockSize)
+			fillWrite();
+		return (writeRaw[writeIx++]);
+	}
+
+	private void fillPage() {
+		for (int i = 0; i < BlockSize; i++)
+			pageRaw[i] = exact ? pageEngine.raw() : raw(pageSeed += Gamma);
+		pageIx = 0;
+	}
+
+	private void fillBern() {
+		for (int i = 0; i < BlockSize; i++)
+			bernBits[i] = exact ? bern.nextInt() : ((raw(bernSeed += Gamma) < BernP) ? 1 : 0);
+		bernIx = 0;
+	}
+
+	private void fillWrite() {
+		for (int i = 0; i < BlockSize; i++)
+			writeRaw[i] = exact ? writeEngine.raw() : raw(writeSeed += Gamma);
+		writeIx = 0;
+	}
+
+	// SplitMix64 - z is the state after the increment by Gamma; returns a
+	// uniform double in [0, 1) (53 bits)
+	static final long Gamma = 0x9E3779B97F4A7C15L;
+
+	static double raw(long z) {
+		return ((mix(z) >>> 11) * 0x1.0p-53);
+	}
+
+	// SplitMix64 output function - mixes the 64 bits of z
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return (z ^ (z >>> 31));
+	}
+}
+
+// Poisson numbers generated in blocks (the Colt sequence of dist)
+class PoissonBlock implements java.io.Serializable {
+	private static final long serialVersionUID = 1L;
+	Poisson dist;
+	int[] values = new int[RefGenerator.BlockSize];
+	int ix = RefGenerator.BlockSize; // next number (BlockSize - buffer empty)
+
+	public PoissonBlock(Poisson dist) {
+		this.dist = dist;
+	}
+
+	public int nextInt() {
+		if (ix == values.length) {
+			for (int i = 0; i < values.length; i++)
+				values[i] = dist.nextInt();
+			ix = 0;
+		}
+		return (values[ix++]);
+	}
+}
@@ -0,0 +1,127 @@
+// File: ReplicationExp.java
+// Description:
+//    Runs a number of replications of the memory management simulation for
+//    each paging algorithm in parallel and reports confidence intervals
+
+// Import packages
+import java.lang.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.io.*;
+import cern.jet.random.engine.*;
+import cern.jet.stat.*;
+
+// Main Method: Experiments
+// Arguments (all optional): number of replications, end time, number of threads
+class ReplicationExp {
+	static final int NumSeeds = 14; // number of seeds in a Seeds object
+
+	public static void main(String[] args) {
+		int numReps = 30;
+		double startTime = 0.0, endTime = 5000000; // 5 seconds
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		PagingAlgorithm[] algs = { PagingAlgorithm.FIFO, PagingAlgorithm.CLOCK, PagingAlgorithm.LRU,
+				PagingAlgorithm.COUNT, PagingAlgorithm.ARC, PagingAlgorithm.CLOCKPRO, PagingAlgorithm.TWOQ,
+				PagingAlgorithm.ESCLOCK };
+
+		if (args.length > 0)
+			numReps = Integer.parseInt(args[0]);
+		if (args.length > 1)
+			endTime = Double.parseDouble(args[1]);
+		if (args.length > 2)
+			numThreads = Integer.parseInt(args[2]);
+
+		System.out.println("Running " + numReps + " replications of " + algs.length + " algorithms on "
+				+ numThreads + " threads");
+		RepOutput[][] out = runReplications(algs, numReps, startTime, endTime, numThreads);
+		for (int a = 0; a < algs.length; a++) {
+			double[] per1000 = new double[numReps];
+			double[] phiMean = new double[numReps];
+			for (int r = 0; r < numReps; r++) {
+				per1000[r] = out[a][r].numPer1000;
+				phiMean[r] = out[a][r].phiMean;
+			}
+			System.out.println(algs[a] + ":");
+			System.out.println("   Number of faults per 1000 references: " + ciString(per1000));
+			System.out.println("   Mean time between faults: " + ciString(phiMean));
+		}
+	}
+
+	// Seeds for replication rep - taken from consecutive rows of the colt
+	// seed table so that every replication gets the same seeds on every run
+	// and every algorithm sees the same random numbers in a replication
+	public static Seeds repSeeds(int rep) {
+		RandomSeedGenerator rsg = new RandomSeedGenerator(rep * NumSeeds, 0);
+		return new Seeds(rsg.nextSeed(), rsg.nextSeed(), rsg.nextSeed(), rsg.nextSeed(), rsg.nextSeed(),
+				rsg.nextSeed(), rsg.nextSeed(), rsg.nextSeed(), rsg.nextSeed(), rsg.nextSeed(), rsg.nextSeed(),
+				rsg.nextSeed(), rsg.nextSeed(), rsg.nextSeed());
+	}
+
+	// Runs numReps replications of each algorithm, returns outputs indexed [algorithm][replication]
+	public static RepOutput[][] runReplications(PagingAlgorithm[] algs, int numReps, double startTime,
+			double endTime, int numThreads) {
+		RepOutput[][] out = new RepOutput[algs.length][numReps];
+		ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+		List<Future<RepOutput>> futures = new ArrayList<Future<RepOutput>>();
+
+		for (int a = 0; a < algs.length; a++)
+			for (int r = 0; r < numReps; r++) {
+				final PagingAlgorithm alg = algs[a];
+				final int rep = r;
+				futures.add(pool.submit(() -> runOne(alg, rep, startTime, endTime, true)));
+			}
+		try {
+			int i = 0;
+			for (int a = 0; a < algs.length; a++)
+				for (int r = 0; r < numReps; r++)
+					out[a][r] = futures.get(i++).get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException("Replication failed", e);
+		} finally {
+			pool.shutdown();
+		}
+		return (out);
+	}
+
+	// Runs a single replication
+	// fastMemAccess - complete memory accesses without FEL events when possible
+	public static RepOutput runOne(PagingAlgorithm alg, int rep, double startTime, double endTime,
+			boolean fastMemAccess) {
+		MemManage mmng = new MemManage(alg, startTime, endTime, repSeeds(rep));
+		mmng.fastMemAccess = fastMemAccess;
+		mmng.runSimulation();
+		mmng.computeOutput();
+		return new RepOutput(mmng.phiStats.number, mmng.numMemAccesses, mmng.numPer1000, mmng.phiStats.mean);
+	}
+
+	// Mean and 95% confidence interval half width (Student t) of the values
+	public static String ciString(double[] values) {
+		int n = values.length;
+		double sum = 0, sumSq = 0;
+		for (double v : values)
+			sum += v;
+		double mean = sum / n;
+		for (double v : values)
+			sumSq += (v - mean) * (v - mean);
+		if (n < 2)
+			return (mean + "");
+		double stdDev = Math.sqrt(sumSq / (n - 1));
+		double hw = Probability.studentTInverse(0.05, n - 1) * stdDev / Math.sqrt(n);
+		return String.format("%.3f +/- %.3f (95%% CI, n=%d)", mean, hw, n);
+	}
+}
+
+// Output of one replication
+class RepOutput {
+	long numFaults; // Number of page faults
+	long numMemAccesses; // Number of memory accesses with no page faults
+	long numPer1000; // Number of faults per 1000 references
+	double phiMean; // Mean time between faults
+
+	public RepOutput(long numFaults, long numMemAccesses, long numPer1000, double phiMean) {
+		this.numFaults = numFaults;
+		this.numMemAccesses = numMemAccesses;
+		this.numPer1000 = numPer1000;
+		this.phiMean = phiMean;
+	}
+}
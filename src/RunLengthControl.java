@@ -0,0 +1,129 @@
+// File: RunLengthControl.java
+// Description:
+//    Output analysis of the fault rate during a run - sets the length of the
+//    run from the precision of its estimate instead of a fixed end time.
+//    The references are grouped in blocks of blockRefs references; the series
+//    of the faults per 1000 references of the blocks is analyzed every
+//    checkBlocks blocks:
+//       - warm-up truncation (MSER-5): the series is averaged in groups of 5
+//         and the first d groups are discarded, d (at most half of them)
+//         minimizing the variance of the mean of the rest divided by its
+//         length (White, 1997)
+//       - batch means: the rest is split in numBatches batches, the 95%
+//         confidence interval of the fault rate computed from their means
+//         (Student t)
+//    When the half width is at most relPrecision times the mean, the run is
+//    done (see MemManage.implicitStopCondition).
+
+// Import packages
+import java.util.*;
+import cern.jet.stat.*;
+
+class RunLengthControl {
+	// Parameters
+	int blockRefs; // references in a block (one value of the series)
+	double relPrecision; // half width of the confidence interval relative to the mean
+	int numBatches; // batches of the batch means
+	int minBlocks; // blocks before the first analysis
+	int checkBlocks; // blocks between analyses
+	// Series - faults per 1000 references of each block, and the time it ended
+	double[] rate;
+	double[] endTime;
+	int numBlocks;
+	int refs; // references in the current block
+	int faults; // faults in the current block
+	// Output - of the last analysis
+	int truncation; // blocks discarded as the transient
+	double mean; // faults per 1000 references after the transient
+	double halfWidth; // half width of the 95% confidence interval of mean
+	int batchBlocks; // blocks in a batch
+	boolean done; // the precision is reached
+
+	public RunLengthControl(int blockRefs, double relPrecision, int numBatches, int minBlocks, int checkBlocks) {
+		this.blockRefs = blockRefs;
+		this.relPrecision = relPrecision;
+		this.numBatches = numBatches;
+		this.minBlocks = minBlocks;
+		this.checkBlocks = checkBlocks;
+		rate = new double[1024];
+		endTime = new double[1024];
+	}
+
+	// Defaults - blocks of 1000 references, 2% precision with 20 batches,
+	// first analysis after 200 blocks then every 100 blocks
+	public RunLengthControl() {
+		this(1000, 0.02, 20, 200, 100);
+	}
+
+	// A reference (fault - a page fault) ending at time clock
+	public void reference(boolean fault, double clock) {
+		if (fault)
+			faults++;
+		if (++refs < blockRefs)
+			return;
+		if (numBlocks == rate.length) {
+			rate = Arrays.copyOf(rate, 2 * numBlocks);
+			endTime = Arrays.copyOf(endTime, 2 * numBlocks);
+		}
+		rate[numBlocks] = (faults * 1000.0) / blockRefs;
+		endTime[numBlocks++] = clock;
+		refs = 0;
+		faults = 0;
+		if ((numBlocks >= minBlocks) && ((numBlocks - minBlocks) % checkBlocks == 0))
+			analyze();
+	}
+
+	// Truncates the transient and computes the confidence interval of the rest
+	public void analyze() {
+		double[] means = new double[numBatches];
+		double sum = 0, sumSq = 0;
+
+		truncation = mser5(rate, numBlocks);
+		batchBlocks = (numBlocks - truncation) / numBatches;
+		if (batchBlocks == 0)
+			return;
+		for (int b = 0; b < numBatches; b++) {
+			for (int i = truncation + b * batchBlocks; i < truncation + (b + 1) * batchBlocks; i++)
+				means[b] += rate[i];
+			means[b] /= batchBlocks;
+			sum += means[b];
+		}
+		mean = sum / numBatches;
+		for (double m : means)
+			sumSq += (m - mean) * (m - mean);
+		halfWidth = Probability.studentTInverse(0.05, numBatches - 1) * Math.sqrt(sumSq / (numBatches - 1))
+				/ Math.sqrt(numBatches);
+		done = (mean > 0) && (halfWidth <= relPrecision * mean);
+	}
+
+	// MSER-5 truncation point (in values) of the first n values of y
+	static int mser5(double[] y, int n) {
+		int m = n / 5; // groups of 5 values
+		double[] z = new double[m];
+		double s1 = 0, s2 = 0, best = Double.MAX_VALUE;
+		int d = 0;
+
+		for (int j = 0; j < m; j++) {
+			for (int i = 5 * j; i < 5 * j + 5; i++)
+				z[j] += y[i];
+			z[j] /= 5;
+		}
+		// Suffix sums from the end - the statistic for each d from m - 1 down to 0
+		for (int j = m - 1; j >= 0; j--) {
+			s1 += z[j];
+			s2 += z[j] * z[j];
+			int k = m - j;
+			double stat = (s2 - s1 * s1 / k) / ((double) k * k);
+			if ((j <= m / 2) && (stat <= best)) {
+				best = stat;
+				d = j;
+			}
+		}
+		return (5 * d);
+	}
+
+	// Time the transient ended (start of the run if none discarded)
+	public double transientEnd(double time0) {
+		return ((truncation == 0) ? time0 : endTime[truncation - 1]);
+	}
+}
@@ -0,0 +1,51 @@
+// File: RunLengthExp.java
+// Description:
+//    Run length set by the precision of the fault rate - runs each algorithm
+//    until the 95% confidence interval of its faults per 1000 references
+//    (after the transient found by MSER-5, batch means) is within the
+//    precision given (see RunLengthControl), endTime being only an upper
+//    bound. Reports the transient discarded, the estimate and the length of
+//    the run, and the fault rate of the whole run (transient included).
+//    Usage: RunLengthExp [relPrecision] [endTime] [replication]
+
+// Import packages
+import java.lang.*;
+import java.util.*;
+
+// Main Method: Experiments
+//
+class RunLengthExp {
+	public static void main(String[] args) {
+		double startTime = 0.0, endTime = 50000000; // at most 50 seconds
+		double precision = 0.02;
+		PagingAlgorithm[] algs = { PagingAlgorithm.FIFO, PagingAlgorithm.CLOCK, PagingAlgorithm.LRU,
+				PagingAlgorithm.COUNT };
+		int rep = 0;
+		MemManage mmng;
+		RunLengthControl rc;
+
+		if (args.length > 0)
+			precision = Double.parseDouble(args[0]);
+		if (args.length > 1)
+			endTime = Double.parseDouble(args[1]);
+		if (args.length > 2)
+			rep = Integer.parseInt(args[2]);
+
+		for (PagingAlgorithm alg : algs) {
+			System.out.println("Running simulation using " + alg);
+			mmng = new MemManage(alg, startTime, endTime, ReplicationExp.repSeeds(rep));
+			rc = new RunLengthControl(1000, precision, 20, 200, 100);
+			mmng.setRunLengthControl(rc);
+			mmng.runSimulation();
+			mmng.computeOutput();
+			System.out.println(String.format("%s at time %.0f after %d references", rc.done ? "Stopped" : "Not precise",
+					mmng.timef, mmng.numMemAccesses + mmng.phiStats.number));
+			System.out.println(String.format("Transient: %d references (up to time %.0f)", rc.truncation * rc.blockRefs,
+					rc.transientEnd(mmng.time0)));
+			System.out.println(String.format("Faults per 1000 references: %.3f +/- %.3f (95%% CI, %d batches of %d references)",
+					rc.mean, rc.halfWidth, rc.numBatches, rc.batchBlocks * rc.blockRefs));
+			System.out.println("Faults per 1000 references of the whole run: " + mmng.numPer1000);
+			System.out.println();
+		}
+	}
+}
@@ -0,0 +1,157 @@
+// File: StreamOutputSet.java
+// Description:
+//    Output set that computes its statistics as values are put instead of
+//    keeping the values (ESOutputSet writes every value to a file and
+//    computes the statistics at the end). Memory use is fixed: quantiles
+//    are estimated with the P-square algorithm (Jain and Chlamtac, 1985).
+
+class StreamOutputSet {
+	static final double[] Quantiles = { 0.5, 0.9, 0.99 }; // quantiles estimated
+
+	public String name;
+	public long number; // number of values
+	public double sum;
+	public double mean;
+	public double variance; // population variance (as in ESOutputSet)
+	public double stdDev;
+	public double max;
+	public double maxTime;
+	public double min;
+	public double minTime;
+	private double m2; // sum of squares of differences from the mean (Welford)
+	private P2Quantile[] quantiles;
+
+	public StreamOutputSet(String name) {
+		this.name = name;
+		quantiles = new P2Quantile[Quantiles.length];
+		for (int i = 0; i < Quantiles.length; i++)
+			quantiles[i] = new P2Quantile(Quantiles[i]);
+		clearSet();
+	}
+
+	public void clearSet() {
+		number = 0;
+		sum = mean = variance = stdDev = m2 = 0;
+		max = maxTime = min = minTime = 0;
+		for (P2Quantile q : quantiles)
+			q.clear();
+	}
+
+	public void put(double time, double value) {
+		double delta;
+
+		number++;
+		sum += value;
+		delta = value - mean;
+		mean += delta / number;
+		m2 += delta * (value - mean);
+		if ((number == 1) || (value > max)) {
+			max = value;
+			maxTime = time;
+		}
+		if ((number == 1) || (value < min)) {
+			min = value;
+			minTime = time;
+		}
+		for (P2Quantile q : quantiles)
+			q.add(value);
+	}
+
+	// Computes variance and standard deviation (mean, min and max are always current)
+	public void computePhiDSOVs() {
+		variance = (number > 0) ? m2 / number : 0;
+		stdDev = Math.sqrt(variance);
+	}
+
+	// Estimate of quantile p - one of the values in Quantiles
+	public double quantile(double p) {
+		for (P2Quantile q : quantiles)
+			if (q.p == p)
+				return (q.value());
+		System.out.println("Quantile " + p + " not estimated for " + name);
+		return (Double.NaN);
+	}
+}
+
+// P-square estimator for one quantile - keeps five markers
+class P2Quantile {
+	double p; // quantile estimated
+	double[] q = new double[5]; // marker heights
+	double[] n = new double[5]; // marker positions
+	double[] np = new double[5]; // desired marker positions
+	double[] dn = new double[5]; // increments of desired positions
+	int count; // number of values added
+
+	P2Quantile(double p) {
+		this.p = p;
+		clear();
+	}
+
+	void clear() {
+		count = 0;
+		dn[0] = 0;
+		dn[1] = p / 2;
+		dn[2] = p;
+		dn[3] = (1 + p) / 2;
+		dn[4] = 1;
+	}
+
+	void add(double x) {
+		int i, k;
+
+		if (count < 5) { // first five values are kept sorted
+			for (i = count; (i > 0) && (q[i - 1] > x); i--)
+				q[i] = q[i - 1];
+			q[i] = x;
+			count++;
+			if (count == 5)
+				for (i = 0; i < 5; i++) {
+					n[i] = i;
+					np[i] = 4 * dn[i];
+				}
+			return;
+		}
+		count++;
+		// Find cell k containing x and adjust the extreme markers
+		if (x < q[0]) {
+			q[0] = x;
+			k = 0;
+		} else if (x >= q[4]) {
+			q[4] = x;
+			k = 3;
+		} else {
+			for (k = 0; x >= q[k + 1]; k++)
+				;
+		}
+		for (i = k + 1; i < 5; i++)
+			n[i]++;
+		for (i = 0; i < 5; i++)
+			np[i] += dn[i];
+		// Adjust the heights of the middle markers if they are off their desired positions
+		for (i = 1; i < 4; i++) {
+			double d = np[i] - n[i];
+			if (((d >= 1) && (n[i + 1] - n[i] > 1)) || ((d <= -1) && (n[i - 1] - n[i] < -1))) {
+				int s = (d > 0) ? 1 : -1;
+				double qp = parabolic(i, s);
+				if ((q[i - 1] < qp) && (qp < q[i + 1]))
+					q[i] = qp;
+				else
+					q[i] = q[i] + s * (q[i + s] - q[i]) / (n[i + s] - n[i]); // linear
+				n[i] += s;
+			}
+		}
+	}
+
+	private double parabolic(int i, int s) {
+		return (q[i] + s / (n[i + 1] - n[i - 1]) * ((n[i] - n[i - 1] + s) * (q[i + 1] - q[i]) / (n[i + 1] - n[i])
+				+ (n[i + 1] - n[i] - s) * (q[i] - q[i - 1]) / (n[i] - n[i - 1])));
+	}
+
+	double value() {
+		if (count == 0)
+			return (Double.NaN);
+		if (count < 5) // exact from the sorted values
+			return (q[(int) Math.min(count - 1, Math.round(p * (count - 1)))]);
+		return (q[2]);
+	}
+}
@@ -0,0 +1,163 @@
+// File: Tlb.java
+// Description:
+//    Translation lookaside buffer in front of the page tables. numEntries
+//    entries in sets of "ways" entries (ways = numEntries - fully
+//    associative, 1 - direct mapped); page vpage can only be in set
+//    vpage % numSets. A miss costs a page table walk (missPenalty) and the
+//    translation is loaded in the set, replacing an entry chosen by the
+//    policy. Without ASIDs the TLB is flushed at each context switch; with
+//    ASIDs the entries are tagged with the process and survive switches.
+//    The kernel invalidates the entry of a page when its frame is taken.
+//    An entry can map a huge page (see RadixPageTable) - it is tagged with
+//    vpage >> shift and is in set (vpage >> shift) % numSets.
+
+// Import packages
+import cern.jet.random.engine.*;
+import cern.jet.random.*;
+
+enum TlbPolicy {
+	LRU, FIFO, RANDOM
+}; // TLB replacement within a set
+
+class Tlb implements java.io.Serializable {
+	private static final long serialVersionUID = 1L;
+	int numEntries;
+	int ways; // entries per set
+	int numSets;
+	TlbPolicy policy;
+	boolean asid; // entries tagged with the process - no flush on context switch
+	double missPenalty; // time of the page table walk on a miss
+	int[] entryPid; // process of each entry
+	int[] entryPage; // virtual page of each entry (-1 if invalid) - huge page number if entryShift > 0
+	byte[] entryShift; // log2 of the pages mapped by each entry
+	int hugeShift; // log2 of the pages of the huge pages loaded (0 - none)
+	long[] lastUse; // last reference to each entry (LRU)
+	long[] loaded; // time each entry was loaded (FIFO)
+	long numLookups; // orders lastUse and loaded
+	Uniform random; // for RANDOM
+	Process current; // process of the last lookup
+	// Output
+	long hits;
+	long misses;
+	long contextSwitches;
+	long flushes;
+	long invalidations; // entries invalidated when their page was replaced
+
+	public Tlb(int numEntries, int ways, TlbPolicy policy, boolean asid, double missPenalty) {
+		this.numEntries = numEntries;
+		this.ways = Math.max(1, Math.min(ways, numEntries));
+		numSets = numEntries / this.ways;
+		this.policy = policy;
+		this.asid = asid;
+		this.missPenalty = missPenalty;
+		entryPid = new int[numSets * this.ways];
+		entryPage = new int[numSets * this.ways];
+		java.util.Arrays.fill(entryPage, -1);
+		entryShift = new byte[entryPage.length];
+		lastUse = new long[entryPage.length];
+		loaded = new long[entryPage.length];
+		random = new Uniform(new MersenneTwister(4357));
+	}
+
+	// Returns an empty TLB with the same configuration (for another CPU)
+	public Tlb copy() {
+		return (new Tlb(numEntries, ways, policy, asid, missPenalty));
+	}
+
+	// Records that prc is executing - without ASIDs, the TLB is flushed when
+	// it is not the process of the last lookup
+	public void contextSwitch(Process prc) {
+		if (prc == current)
+			return;
+		current = prc;
+		contextSwitches++;
+		if (!asid) {
+			java.util.Arrays.fill(entryPage, -1);
+			flushes++;
+		}
+	}
+
+	// Returns true if the translation of vpage of prc is in the TLB
+	public boolean lookup(Process prc, int vpage) {
+		int e = find(prc, vpage, 0);
+
+		if ((e == -1) && (hugeShift > 0))
+			e = find(prc, vpage, hugeShift);
+		numLookups++;
+		if (e == -1) {
+			misses++;
+			return (false);
+		}
+		lastUse[e] = numLookups;
+		hits++;
+		return (true);
+	}
+
+	// Loads the translation of vpage of prc (after a miss) - mapping 2^shift
+	// pages (the huge page holding vpage) if shift > 0
+	public void fill(Process prc, int vpage, int shift) {
+		int first = ((vpage >>> shift) % numSets) * ways;
+		int e = -1;
+
+		for (int i = first; i < first + ways; i++)
+			if (entryPage[i] == -1) { // free entry
+				e = i;
+				break;
+			}
+		if (e == -1) {
+			switch (policy) {
+			case RANDOM:
+				e = first + random.nextIntFromTo(0, ways - 1);
+				break;
+			case FIFO:
+				e = first;
+				for (int i = first + 1; i < first + ways; i++)
+					if (loaded[i] < loaded[e])
+						e = i;
+				break;
+			default: // LRU
+				e = first;
+				for (int i = first + 1; i < first + ways; i++)
+					if (lastUse[i] < lastUse[e])
+						e = i;
+				break;
+			}
+		}
+		entryPid[e] = prc.pid;
+		entryPage[e] = vpage >>> shift;
+		entryShift[e] = (byte) shift;
+		if (shift > 0)
+			hugeShift = shift;
+		lastUse[e] = loaded[e] = numLookups;
+	}
+
+	// Invalidates the translation of vpage of prc (page no longer in memory),
+	// and of the huge page holding it
+	public void invalidate(Process prc, int vpage) {
+		int e = find(prc, vpage, 0);
+
+		if (e != -1) {
+			entryPage[e] = -1;
+			invalidations++;
+		}
+		if ((hugeShift > 0) && ((e = find(prc, vpage, hugeShift)) != -1)) {
+			entryPage[e] = -1;
+			invalidations++;
+		}
+	}
+
+	// Returns the entry of vpage of prc mapping 2^shift pages, -1 if none
+	int find(Process prc, int vpage, int shift) {
+		int key = vpage >>> shift;
+		int first = (key % numSets) * ways;
+
+		for (int i = first; i < first + ways; i++)
+			if ((entryPage[i] == key) && (entryShift[i] == shift) && (entryPid[i] == prc.pid))
+				return (i);
+		return (-1);
+	}
+
+	public double hitRate() {
+		return ((double) hits / Math.max(1, hits + misses));
+	}
+}
@@ -0,0 +1,73 @@
+// File: TlbExp.java
+// Description:
+//    Effect of the TLB - runs the simulation without a TLB, then with TLBs of
+//    8 to 64 entries (4-way, LRU) flushed at each context switch and tagged
+//    with ASIDs, then 16 entries with each associativity and replacement
+//    policy. A TLB miss costs a page table walk of missPenalty time units.
+//    Reports the TLB hit rate, the effective access time (see
+//    MemManage.effectiveAccessTime) and the throughput.
+//    Usage: TlbExp [pagingAlgorithm] [endTime] [replication] [missPenalty]
+
+// Import packages
+import java.lang.*;
+import java.util.*;
+
+// Main Method: Experiments
+//
+class TlbExp {
+	public static void main(String[] args) {
+		double startTime = 0.0, endTime = 5000000; // 5 seconds
+		PagingAlgorithm alg = PagingAlgorithm.LRU;
+		int rep = 0;
+		double missPenalty = 2; // two level page table walk
+		MemManage mmng;
+
+		if (args.length > 0)
+			alg = PagingAlgorithm.valueOf(args[0]);
+		if (args.length > 1)
+			endTime = Double.parseDouble(args[1]);
+		if (args.length > 2)
+			rep = Integer.parseInt(args[2]);
+		if (args.length > 3)
+			missPenalty = Double.parseDouble(args[3]);
+
+		System.out.println("Running simulation using " + alg + " without TLB");
+		mmng = new MemManage(alg, startTime, endTime, ReplicationExp.repSeeds(rep));
+		mmng.runSimulation();
+		mmng.computeOutput();
+		printOutput(mmng);
+		for (int entries : new int[] { 8, 16, 32, 64 })
+			for (boolean asid : new boolean[] { false, true })
+				run(alg, startTime, endTime, rep, new Tlb(entries, 4, TlbPolicy.LRU, asid, missPenalty));
+		for (int ways : new int[] { 1, 2, 16 })
+			run(alg, startTime, endTime, rep, new Tlb(16, ways, TlbPolicy.LRU, true, missPenalty));
+		for (TlbPolicy policy : new TlbPolicy[] { TlbPolicy.FIFO, TlbPolicy.RANDOM })
+			run(alg, startTime, endTime, rep, new Tlb(16, 4, policy, true, missPenalty));
+	}
+
+	static void run(PagingAlgorithm alg, double startTime, double endTime, int rep, Tlb tlb) {
+		MemManage mmng;
+
+		System.out.println("Running simulation using " + alg + " with TLB: " + tlb.numEntries + " entries, "
+				+ tlb.ways + "-way, " + tlb.policy + (tlb.asid ? ", ASID tagged" : ", flushed on context switch"));
+		mmng = new MemManage(alg, startTime, endTime, ReplicationExp.repSeeds(rep));
+		mmng.setTlb(tlb);
+		mmng.runSimulation();
+		mmng.computeOutput();
+		printOutput(mmng);
+	}
+
+	static void printOutput(MemManage mmng) {
+		Tlb tlb = mmng.kernel.cpus[0].tlb;
+
+		System.out.println("Memory accesses per simulated second: "
+				+ (long) (mmng.numMemAccesses / ((mmng.timef - mmng.time0) / 1000000)));
+		System.out.println("Number of faults per 1000 references: " + mmng.numPer1000);
+		if (tlb != null)
+			System.out.println(String.format(
+					"TLB: hit rate %.4f, %d context switches, %d flushes, %d entries invalidated by replacement",
+					tlb.hitRate(), tlb.contextSwitches, tlb.flushes, tlb.invalidations));
+		System.out.println(String.format("Effective access time: %.3f", mmng.effectiveAccessTime()));
+		System.out.println();
+	}
+}
@@ -0,0 +1,64 @@
+// File: TraceExp.java
+// Description:
+//    Records the page references of a simulation run to a trace file, or
+//    replays a trace file with each paging algorithm.
+//    Usage: TraceExp record <file> [endTime] [replication]
+//           TraceExp replay <file> [endTime] [replication]
+//    Seeds are those of the replication number (see ReplicationExp), so
+//    replaying with the same replication reproduces the recorded run.
+
+// Import packages
+import java.lang.*;
+import java.util.*;
+import java.io.*;
+
+// Main Method: Experiments
+//
+class TraceExp {
+	public static void main(String[] args) throws IOException {
+		double startTime = 0.0, endTime = 5000000; // 5 seconds
+		int rep = 0;
+		MemManage mmng;
+
+		if (args.length < 2) {
+			System.out.println("Usage: TraceExp record|replay <file> [endTime] [replication]");
+			return;
+		}
+		if (args.length > 2)
+			endTime = Double.parseDouble(args[2]);
+		if (args.length > 3)
+			rep = Integer.parseInt(args[3]);
+
+		if (args[0].equals("record")) {
+			System.out.println("Recording simulation using FIFO to " + args[1]);
+			TraceRecorder rec = new TraceRecorder(args[1]);
+			mmng = new MemManage(PagingAlgorithm.FIFO, startTime, endTime, ReplicationExp.repSeeds(rep), null,
+					null, rec);
+			mmng.runSimulation();
+			mmng.computeOutput();
+			System.out.println("Number of references recorded: " + rec.numRefs);
+			printOutput(mmng);
+		} else {
+			for (PagingAlgorithm alg : new PagingAlgorithm[] { PagingAlgorithm.FIFO, PagingAlgorithm.CLOCK,
+					PagingAlgorithm.LRU, PagingAlgorithm.COUNT, PagingAlgorithm.ARC, PagingAlgorithm.CLOCKPRO,
+					PagingAlgorithm.TWOQ }) {
+				TraceReader trace = new TraceReader(args[1]);
+				System.out.println("Replaying " + args[1] + " (" + trace.numRecords() + " references) using " + alg);
+				mmng = new MemManage(alg, startTime, endTime, ReplicationExp.repSeeds(rep), null, trace,
+						null);
+				mmng.runSimulation();
+				mmng.computeOutput();
+				printOutput(mmng);
+			}
+		}
+	}
+
+	static void printOutput(MemManage mmng) {
+		System.out.println("Number of faults: " + mmng.phiStats.number);
+		System.out.println("Number memory accesses (no faults): " + mmng.numMemAccesses);
+		System.out.println("Number of faults per 1000 references: " + mmng.numPer1000);
+		System.out.println("Dirty pages written back: " + mmng.kernel.numWriteBacks + " replaced, "
+				+ mmng.kernel.numCleaned + " by the page cleaner");
+		System.out.println();
+	}
+}
@@ -0,0 +1,259 @@
+// File: TraceReader.java
+// Description:
+//    Replays page references from a trace file written by TraceRecorder (see
+//    there for the format). The file is memory mapped a window at a time, so
+//    traces much larger than the heap can be replayed. The records are read
+//    once, in order: the references of the other processes met while looking
+//    for those of a process are queued for them, so the replay does not depend
+//    on the order in which the simulation schedules the processes (the queues
+//    only hold what the processes have drifted apart from the recorded run).
+//    A process with no more references stops, the replay ends when all of
+//    them have stopped.
+
+// Import packages
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+class TraceReader {
+	static final long WindowSize = 64L << 20; // bytes mapped at a time by a cursor (multiple of RecordSize)
+	static final int MaxPidRange = 1 << 20; // largest range of the pids of a trace
+
+	String fileName;
+	FileChannel channel;
+	int numProcesses;
+	int[] header; // HeaderInts ints for each process (see TraceRecorder)
+	long dataStart; // byte offset of the first reference record
+	long dataEnd; // byte offset of the end of the records
+	int pidBase; // smallest pid of the trace
+	int[] index; // index in header of pid - pidBase (-1 for a pid not in the trace)
+	Cursor cursor; // next record of the trace
+	PageQueue[] pending; // references read for each process but not yet replayed
+	boolean[] exhausted; // the process has no more references
+	int numExhausted;
+	int[][] sequences; // references of each process not yet taken by pageSequence (null until read)
+	boolean ended; // set when all the processes have no more references (or on an error)
+
+	public TraceReader(String fileName) throws IOException {
+		this.fileName = fileName;
+		channel = new RandomAccessFile(fileName, "r").getChannel();
+		ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), 12));
+		if ((buf.remaining() < 12) || (buf.getInt() != TraceRecorder.Magic))
+			throw new IOException("Not a trace file: " + fileName);
+		if (buf.getInt() != TraceRecorder.Version)
+			throw new IOException("Unsupported trace file version: " + fileName);
+		numProcesses = buf.getInt();
+		header = new int[numProcesses * TraceRecorder.HeaderInts];
+		dataStart = 12 + 4L * header.length;
+		dataEnd = channel.size();
+		if ((numProcesses <= 0) || (dataStart > dataEnd)
+				|| ((dataEnd - dataStart) % TraceRecorder.RecordSize != 0))
+			throw new IOException("Corrupted trace file: " + fileName);
+		channel.map(FileChannel.MapMode.READ_ONLY, 12, 4L * header.length).asIntBuffer().get(header);
+		pidBase = Integer.MAX_VALUE;
+		int pidMax = Integer.MIN_VALUE;
+		for (int i = 0; i < numProcesses; i++) {
+			pidBase = Math.min(pidBase, header[i * TraceRecorder.HeaderInts]);
+			pidMax = Math.max(pidMax, header[i * TraceRecorder.HeaderInts]);
+		}
+		if ((long) pidMax - pidBase >= MaxPidRange)
+			throw new IOException("Corrupted trace file: " + fileName);
+		index = new int[pidMax - pidBase + 1];
+		java.util.Arrays.fill(index, -1);
+		pending = new PageQueue[numProcesses];
+		for (int i = 0; i < numProcesses; i++) {
+			index[header[i * TraceRecorder.HeaderInts] - pidBase] = i;
+			pending[i] = new PageQueue();
+		}
+		cursor = new Cursor();
+		exhausted = new boolean[numProcesses];
+		numExhausted = 0;
+		sequences = null;
+		ended = false;
+	}
+
+	// number of reference records in the trace
+	public long numRecords() {
+		return ((dataEnd - dataStart) / TraceRecorder.RecordSize);
+	}
+
+	// Creates the processes described in the trace header. The random number
+	// generators of the processes are not used for references during a replay.
+	public Process[] createProcesses(Seeds sd) {
+		int[][] seeds = { { sd.prc1, sd.maprc1, sd.bernprc1 }, { sd.prc2, sd.maprc2, sd.bernprc2 },
+				{ sd.prc3, sd.maprc3, sd.bernprc3 }, { sd.prc4, sd.maprc4, sd.bernprc4 } };
+		Process[] prcs = new Process[numProcesses];
+		int h;
+
+		for (int i = 0; i < numProcesses; i++) {
+			h = i * TraceRecorder.HeaderInts;
+			prcs[i] = new Process(header[h], header[h + 1], header[h + 2], header[h + 3], header[h + 4],
+					header[h + 5], sd.copySeed(seeds[i % 4][0], i / 4), sd.copySeed(seeds[i % 4][1], i / 4),
+					sd.copySeed(seeds[i % 4][2], i / 4), sd.exactRandom);
+		}
+		return (prcs);
+	}
+
+	// index in header of process pid (-1 if not in the trace)
+	int indexOf(int pid) {
+		if ((pid < pidBase) || (pid - pidBase >= index.length))
+			return (-1);
+		return (index[pid - pidBase]);
+	}
+
+	// Returns the next page referenced by process prc (-1 when it has no more
+	// references - ended is set when no process has any)
+	public int nextPage(Process prc) {
+		int i = indexOf(prc.pid);
+		int vp;
+
+		if (i == -1) {
+			System.out.println("Process " + prc.pid + " not in trace " + fileName);
+			ended = true;
+			return (-1);
+		}
+		if (exhausted[i])
+			return (-1);
+		vp = pending[i].isEmpty() ? readUntil(i) : pending[i].poll();
+		if (vp == -1) {
+			exhausted[i] = true;
+			if (++numExhausted == numProcesses)
+				ended = true;
+			return (-1);
+		}
+		if (vp >= prc.numPages) {
+			System.out.println("Trace reference out of range for process " + prc.pid + ": " + vp);
+			ended = true;
+			return (-1);
+		}
+		return (vp);
+	}
+
+	// Reads the records up to the next reference of process i - the references
+	// of the other processes are queued for them (-1 at the end of the trace)
+	int readUntil(int i) {
+		int j;
+
+		while (cursor.next()) {
+			j = indexOf(cursor.pid);
+			if (j == i)
+				return (cursor.vpage);
+			if (j != -1)
+				pending[j].add(cursor.vpage);
+		}
+		return (-1);
+	}
+
+	// Returns all the pages referenced by process pid, in order (for OPT
+	// replacement). The sequences of all the processes are read in one pass of
+	// the trace, each is kept until it is taken.
+	public int[] pageSequence(int pid) {
+		int i = indexOf(pid);
+		int[] seq;
+
+		if (i == -1)
+			return (new int[0]);
+		if (sequences == null) {
+			Cursor c = new Cursor();
+			PageQueue[] q = new PageQueue[numProcesses];
+			int j;
+
+			for (j = 0; j < numProcesses; j++)
+				q[j] = new PageQueue();
+			while (c.next())
+				if ((j = indexOf(c.pid)) != -1)
+					q[j].add(c.vpage);
+			sequences = new int[numProcesses][];
+			for (j = 0; j < numProcesses; j++)
+				sequences[j] = q[j].toArray();
+		}
+		seq = (sequences[i] == null) ? new int[0] : sequences[i];
+		sequences[i] = null;
+		return (seq);
+	}
+
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			System.out.println("Error closing trace file: " + fileName + " - " + e.getMessage());
+		}
+	}
+
+	// Position in the trace
+	class Cursor {
+		long pos; // byte offset of the next record to read
+		MappedByteBuffer window; // mapped part of the file
+		long windowStart; // byte offset of window
+		long windowEnd;
+		int pid; // last record read
+		int vpage;
+
+		Cursor() {
+			pos = dataStart;
+			window = null;
+			windowStart = windowEnd = dataStart;
+		}
+
+		// Reads the next record into pid and vpage - false at the end of the trace
+		boolean next() {
+			if (pos < dataEnd) {
+				if (pos >= windowEnd) { // map the next part of the file
+					windowStart = pos;
+					windowEnd = Math.min(dataEnd, pos + WindowSize);
+					try {
+						window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+					} catch (IOException e) {
+						System.out.println("Error reading trace file: " + fileName + " - " + e.getMessage());
+						return (false);
+					}
+				}
+				pid = window.getInt((int) (pos - windowStart));
+				vpage = window.getInt((int) (pos - windowStart) + 4);
+				pos += TraceRecorder.RecordSize;
+				return (true);
+			}
+			return (false);
+		}
+	}
+
+	// FIFO of page numbers (grows as needed)
+	static class PageQueue {
+		int[] pages = new int[64];
+		int head; // index of the first page
+		int size;
+
+		boolean isEmpty() {
+			return (size == 0);
+		}
+
+		void add(int vpage) {
+			if (size == pages.length) { // full - unwrap into an array twice as large
+				int[] p = new int[2 * size];
+				System.arraycopy(pages, head, p, 0, size - head);
+				System.arraycopy(pages, 0, p, size - head, head);
+				pages = p;
+				head = 0;
+			}
+			pages[(head + size++) % pages.length] = vpage;
+		}
+
+		int poll() {
+			int vp = pages[head];
+
+			head = (head + 1) % pages.length;
+			size--;
+			if (size == 0)
+				head = 0;
+			return (vp);
+		}
+
+		int[] toArray() {
+			int[] a = new int[size];
+
+			for (int i = 0; i < size; i++)
+				a[i] = pages[(head + i) % pages.length];
+			return (a);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+// File: TraceRecorder.java
+// Description:
+//    Records the page references of a simulation run to a binary trace file
+//    that can be replayed with TraceReader.
+//
+//    Trace file format (big endian ints):
+//       header:  magic, version, number of processes, then for each process
+//                pid, code pages, data pages, stack pages, heap pages, meanMA
+//       records: pid, virtual page - one per reference, in order of reference
+
+// Import packages
+import java.io.*;
+
+class TraceRecorder {
+	static final int Magic = 0x4D545243; // "MTRC"
+	static final int Version = 1;
+	static final int HeaderInts = 6; // ints in the header of each process
+	static final int RecordSize = 8; // bytes per reference record
+
+	String fileName;
+	DataOutputStream dataOut;
+	long numRefs; // number of references recorded
+
+	public TraceRecorder(String fileName) {
+		this.fileName = fileName;
+		dataOut = null;
+		numRefs = 0;
+	}
+
+	// Opens the trace file and writes the header for the processes of the run
+	public void open(Process[] prcs) {
+		try {
+			dataOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16));
+			dataOut.writeInt(Magic);
+			dataOut.writeInt(Version);
+			dataOut.writeInt(prcs.length);
+			for (Process prc : prcs) {
+				dataOut.writeInt(prc.pid);
+				dataOut.writeInt(prc.numCodePages);
+				dataOut.writeInt(prc.numDataPages);
+				dataOut.writeInt(prc.numStackPages);
+				dataOut.writeInt(prc.numHeapPages);
+				dataOut.writeInt(prc.meanMA);
+			}
+		} catch (IOException e) {
+			System.out.println("Error opening trace file for output: " + fileName + " - " + e.getMessage());
+			dataOut = null;
+		}
+	}
+
+	public void record(int pid, int vpage) {
+		if (dataOut == null)
+			return;
+		try {
+			dataOut.writeInt(pid);
+			dataOut.writeInt(vpage);
+			numRefs++;
+		} catch (IOException e) {
+			System.out.println("Error writing to trace file: " + fileName + " - " + e.getMessage());
+			close();
+		}
+	}
+
+	public void close() {
+		if (dataOut == null)
+			return;
+		try {
+			dataOut.close();
+		} catch (IOException e) {
+			System.out.println("Error closing trace file: " + fileName + " - " + e.getMessage());
+		}
+		dataOut = null;
+	}
+}
@@ -0,0 +1,71 @@
+import java.util.BitSet;
+
+// 2Q replacement (Johnson and Shasha, full version)
+// A newly loaded page goes to the FIFO queue A1in. When it is replaced from
+// A1in, it is remembered in the ghost queue A1out. A page faulted again while
+// in A1out has been referenced twice within a short time - it goes to the LRU
+// list Am. Pages referenced only once (e.g. by a sequential scan) never get
+// into Am and cannot flush the hot pages.
+class TwoQReplacer implements PageReplacer {
+	static final int A1IN = 0;
+	static final int A1OUT = 1;
+	static final int AM = 2;
+	PageLists lists; // A1in and A1out FIFO, Am LRU (head is replaced first)
+	boolean ghostHit; // page being loaded was found in A1out - goes to Am
+	BitSet loaded; // pages loaded whose first access is still to come
+
+	public TwoQReplacer(Process prc) {
+		lists = new PageLists(prc.numPages, 3);
+		loaded = new BitSet(prc.numPages);
+	}
+
+	// Target size of A1in - a quarter of the frames allocated to the process
+	int kin(Process prc) {
+		return (Math.max(prc.numAllocatedFrames / 4, 1));
+	}
+
+	// Size of A1out - remembers half as many pages as there are frames
+	int kout(Process prc) {
+		return (Math.max(prc.numAllocatedFrames / 2, 1));
+	}
+
+	public void pageFault(int vpage, Process prc) {
+		ghostHit = lists.listOf(vpage) == A1OUT;
+		lists.remove(vpage);
+	}
+
+	// Head of A1in (remembered in A1out) when A1in is over its target, else head of Am
+	public int victim(Process prc, Kernel krn) {
+		int victim;
+
+		if (lists.size[A1IN] > kin(prc) || (lists.size[AM] == 0)) {
+			victim = lists.head[A1IN];
+			lists.addTail(A1OUT, victim); // remembered in A1out
+			if (lists.size[A1OUT] > kout(prc))
+				lists.removeHead(A1OUT);
+		} else {
+			victim = lists.head[AM];
+			lists.remove(victim);
+		}
+		loaded.clear(victim);
+		return (victim);
+	}
+
+	public void pageLoaded(int vpage, Process prc) {
+		lists.addTail(ghostHit ? AM : A1IN, vpage);
+		ghostHit = false;
+		loaded.set(vpage);
+	}
+
+	public void pageAccessed(int vpage, Process prc) {
+		if (loaded.get(vpage)) // access that caused the fault
+			loaded.clear(vpage);
+		else if (lists.listOf(vpage) == AM) // A1in is a FIFO queue, Am an LRU list
+			lists.addTail(AM, vpage);
+	}
+
+	public void pageEvicted(int vpage, Process prc) {
+		loaded.clear(vpage);
+		lists.remove(vpage);
+	}
+}